@@ -15,12 +15,14 @@ import org.logdoc.helpers.std.MimeTypes;
 import org.w3c.dom.Document;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.Flow;
 import java.util.function.Supplier;
 
 import static org.logdoc.helpers.Texts.*;
@@ -59,7 +61,7 @@ public interface CallSugar {
         header(Headers.ContentType, Multiform);
 
         if (!isEmpty(fieldName) && file != null && Files.exists(file)) try {
-            return multipart(file.getFileName().toString(), fieldName, MimeTypes.BINARY, Files.readAllBytes(file));
+            return multipart(file.getFileName().toString(), fieldName, MimeTypes.BINARY, file);
         } catch (final Exception ignore) {
         }
 
@@ -96,7 +98,7 @@ public interface CallSugar {
     }
 
     default FairResponse patch(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return patch();
     }
 
@@ -105,6 +107,11 @@ public interface CallSugar {
         return patch();
     }
 
+    default FairResponse patch(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return patch();
+    }
+
     default FairResponse patch(final JsonNode json) {
         ((Payloads) this).json(json);
         return patch();
@@ -131,7 +138,7 @@ public interface CallSugar {
     }
 
     default FairResponse post(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return post();
     }
 
@@ -140,6 +147,11 @@ public interface CallSugar {
         return post();
     }
 
+    default FairResponse post(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return post();
+    }
+
     default FairResponse post(final JsonNode json) {
         ((Payloads) this).json(json);
         return post();
@@ -166,7 +178,7 @@ public interface CallSugar {
     }
 
     default FairResponse put(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return put();
     }
 
@@ -175,6 +187,11 @@ public interface CallSugar {
         return put();
     }
 
+    default FairResponse put(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return put();
+    }
+
     default FairResponse put(final JsonNode json) {
         ((Payloads) this).json(json);
         return put();
@@ -238,4 +255,8 @@ public interface CallSugar {
     FairCall withChunksWriter(Supplier<byte[]> chunks);
 
     FairCall multipart(String filename, String partName, MimeType partContentType, byte[] partBody);
+
+    FairCall multipart(String filename, String partName, MimeType partContentType, Path partBody);
+
+    FairCall multipart(String filename, String partName, MimeType partContentType, InputStream partBody);
 }
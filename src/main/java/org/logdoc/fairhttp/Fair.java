@@ -1,141 +1,130 @@
 package org.logdoc.fairhttp;
 
-import org.logdoc.fairhttp.diag.CallData;
+import org.logdoc.fairhttp.engine.AsyncEngine;
+import org.logdoc.fairhttp.engine.ConnectionPool;
+import org.logdoc.fairhttp.engine.Http2Engine;
 import org.logdoc.fairhttp.flow.FairResponse;
-import org.logdoc.fairhttp.helpers.CookieKeeper;
 import org.logdoc.fairhttp.helpers.FairErrorHandler;
-import org.logdoc.fairhttp.structs.Point;
-import org.logdoc.fairhttp.structs.traits.Schemas;
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+import org.logdoc.fairhttp.transport.Transport;
 
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-import static org.logdoc.helpers.Texts.isEmpty;
-
 /**
  * @author Denis Danilin | me@loslobos.ru
  * 05.12.2022 13:12
  * fairhttp ☭ sweat and blood
  */
 public final class Fair {
-    public enum Option {FOLLOW_REDIRECTS, SSL_TRUST_ALL_CERTS, SSL_DO_NOT_VERIFY_HOSTNAME, SKIP_RESPONSE}
-
-    static final AtomicReference<Consumer<String>> callTracer = new AtomicReference<>(null);
-    static final AtomicReference<Consumer<FairResponse>> replyVerificator = new AtomicReference<>(null);
-    static final CookieKeeper commonKeeper = new CookieKeeper();
-    static final Map<String, String> commonHeaders = new HashMap<>(0);
-    static final AtomicReference<Proxy> commonProxy = new AtomicReference<>(Proxy.NO_PROXY);
-    static final AtomicReference<Executor> commonExecutor = new AtomicReference<>(null);
-    static final AtomicReference<FairErrorHandler> commonHandler = new AtomicReference<>(new FairErrorHandler() {
-        @Override
-        public void notification(final NotificationLevel level, final String notification, final CallData callData) {
-            System.out.println("FairHttp #" + callData.id + " :: " + level + " :: " + notification);
-            System.out.println(callData.trace());
-        }
-
-        @Override
-        public void exception(final String details, final Throwable t, final CallData callData) {
-            System.out.println("FairHttp #" + callData.id + " :: " + NotificationLevel.ERROR + " :: " + details + " :: " + t.getMessage());
-            t.printStackTrace();
-            System.out.println(callData.trace());
-        }
-    });
-
-    private static FairCall build(final Point point) {
-        return point == null ? null : new FairCall(point);
+    public enum Option {FOLLOW_REDIRECTS, SSL_TRUST_ALL_CERTS, SSL_DO_NOT_VERIFY_HOSTNAME, SKIP_RESPONSE, STREAM_RESPONSE, PUBLISH_RESPONSE, DECOMPRESS_RESPONSE}
+
+    static final FairClient client = new FairClient();
+
+    /**
+     * Shared client behind Fair.url() and the common* setters, tenants wanting their own resources create a FairClient
+     */
+    public static FairClient client() {
+        return client;
     }
 
     public static FairCall url(final String url) {
-        return build(PointFactory.point(url));
+        return client.url(url);
     }
 
     public static FairCall url(final URL url) {
-        return build(PointFactory.point(url));
+        return client.url(url);
     }
 
     public static FairCall url(final URI uri) {
-        return build(PointFactory.point(uri));
-    }
-
-    private static class PointFactory {
-        private static Point point(final String url) {
-            try {
-                return point(new URL(url));
-            } catch (final Exception ignore) {
-            }
-
-            return null;
-        }
-
-        private static Point point(final URL url) {
-            try {
-                return new Point(
-                        Schemas.valueOf(url.getProtocol().toLowerCase().trim()),
-                        url.getHost(),
-                        url.getPort(),
-                        url.getPath(),
-                        url.getQuery()
-                );
-            } catch (final Exception ignore) {
-            }
-
-            return null;
-        }
-
-        private static Point point(final URI uri) {
-            try {
-                return new Point(
-                        Schemas.valueOf(uri.getScheme().toLowerCase().trim()),
-                        uri.getHost(),
-                        uri.getPort(),
-                        uri.getPath(),
-                        uri.getQuery()
-                );
-            } catch (final Exception ignore) {
-            }
-            return null;
-        }
+        return client.url(uri);
+    }
 
+    public static ConnectionPool connectionPool() {
+        return client.connectionPool();
     }
 
+    /**
+     * Executor for FairFuture calls, null resets to the default: common pool, or virtual thread per task on Java 21+
+     */
     public static void commonExecutor(final Executor executor) {
-        commonExecutor.set(executor);
+        client.executor(executor);
+    }
+
+    /**
+     * Response bodies longer than this abort the call instead of being buffered, 0 is no limit
+     */
+    public static void commonMaxBodySize(final long bytes) {
+        client.maxBodySize(bytes);
+    }
+
+    /**
+     * Buffered response bodies past this size go to a temporary memory-mapped file instead of the heap, 0 never spills
+     */
+    public static void commonSpillThreshold(final long bytes) {
+        client.spillThreshold(bytes);
+    }
+
+    /**
+     * Asks for gzip / deflate replies and decodes them on the fly, off by default
+     */
+    public static void commonDecompression(final boolean state) {
+        client.decompression(state);
+    }
+
+    /**
+     * Client wide in-flight byte budget, unlimited until {@code memoryBudget().limit(bytes)}; used() is the current usage
+     */
+    public static MemoryBudget memoryBudget() {
+        return client.memoryBudget();
+    }
+
+    public static Transport nativeTransport() {
+        return client.nativeTransport();
+    }
+
+    /**
+     * Multiplexed h2 engine sharing the native http/1.1 pool as fallback, tune it via {@code http2Transport().settings()}
+     */
+    public static Http2Engine http2Transport() {
+        return client.http2Transport();
+    }
+
+    /**
+     * Default engine: blocking calls go to the native http/1.1 engine, FairFuture calls are driven by selector threads
+     */
+    public static AsyncEngine asyncTransport() {
+        return client.asyncTransport();
+    }
+
+    public static void commonTransport(final Transport transport) {
+        client.transport(transport);
     }
 
     public static void commonProxy(final Proxy proxy) {
-        commonProxy.set(proxy == null ? Proxy.NO_PROXY : proxy);
+        client.proxy(proxy);
     }
 
     public static String commonHeader(final String name) {
-        return name == null ? null : commonHeaders.get(name);
+        return client.header(name);
     }
 
     public static void commonHeader(final String name, final String value) {
-        if (isEmpty(name))
-            return;
-
-        if (isEmpty(value))
-            commonHeaders.remove(name);
-        else
-            commonHeaders.put(name, value);
+        client.header(name, value);
     }
 
     public static void commonErrorHandler(final FairErrorHandler handler) {
-        if (handler != null)
-            commonHandler.set(handler);
+        client.errorHandler(handler);
     }
 
     public static void eachCallTraceConsumer(final Consumer<String> traceConsumer) {
-        callTracer.set(traceConsumer);
+        client.eachCallTraceConsumer(traceConsumer);
     }
 
     public static void setReplyVerificator(final Consumer<FairResponse> verificator) {
-        replyVerificator.set(verificator);
+        client.replyVerificator(verificator);
     }
 }
@@ -1,12 +1,21 @@
 package org.logdoc.fairhttp;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.logdoc.fairhttp.diag.CDBuilder;
+import org.logdoc.fairhttp.engine.HeadParser;
+import org.logdoc.fairhttp.engine.Http1Engine;
+import org.logdoc.fairhttp.engine.Route;
 import org.logdoc.fairhttp.flow.FairResponse;
 import org.logdoc.fairhttp.flow.FairSocket;
+import org.logdoc.fairhttp.flow.ReplyPublisher;
+import org.logdoc.fairhttp.helpers.BufferPool;
 import org.logdoc.fairhttp.helpers.CookieKeeper;
 import org.logdoc.fairhttp.helpers.FairErrorHandler;
+import org.logdoc.fairhttp.helpers.Inflating;
+import org.logdoc.fairhttp.helpers.PooledBytes;
 import org.logdoc.fairhttp.helpers.SocketConsumer;
+import org.logdoc.fairhttp.helpers.Threads;
+import org.logdoc.fairhttp.helpers.TlsContexts;
+import org.logdoc.fairhttp.structs.HeaderMap;
 import org.logdoc.fairhttp.structs.Point;
 import org.logdoc.fairhttp.structs.traits.Headers;
 import org.logdoc.fairhttp.structs.traits.Methods;
@@ -15,36 +24,56 @@ import org.logdoc.fairhttp.structs.websocket.extension.DefaultExtension;
 import org.logdoc.fairhttp.structs.websocket.extension.IExtension;
 import org.logdoc.fairhttp.structs.websocket.protocol.IProtocol;
 import org.logdoc.fairhttp.structs.websocket.protocol.Protocol;
+import org.logdoc.fairhttp.transport.AsyncTransport;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.Compressed;
+import org.logdoc.fairhttp.transport.Multipart;
+import org.logdoc.fairhttp.transport.RequestHead;
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.logdoc.fairhttp.transport.Transport;
+import org.logdoc.fairhttp.transport.TransportResponse;
 import org.logdoc.helpers.std.MimeType;
 import org.logdoc.helpers.std.MimeTypes;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import java.io.ByteArrayOutputStream;
+import javax.net.ssl.SSLSocket;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.Proxy;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 
 import static org.logdoc.fairhttp.structs.traits.Headers.*;
 import static org.logdoc.fairhttp.structs.websocket.protocol.IProtocol.RFC_KEY_UUID;
 import static org.logdoc.fairhttp.structs.websocket.protocol.IProtocol.WS_VERSION;
-import static org.logdoc.helpers.Bytes.copy;
-import static org.logdoc.helpers.Digits.getInt;
-import static org.logdoc.helpers.Inets.trustAllManager;
 import static org.logdoc.helpers.Sporadics.generateSeed;
-import static org.logdoc.helpers.Sporadics.getRnd;
 import static org.logdoc.helpers.Texts.isEmpty;
 import static org.logdoc.helpers.Texts.notNull;
 import static org.logdoc.helpers.std.MimeTypes.BINARY;
@@ -57,33 +86,126 @@ import static org.logdoc.helpers.std.MimeTypes.JSON;
  */
 class FairBase {
     private static final byte[] FEED = new byte[]{'\r', '\n'};
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+    private static final int DOWNLOAD_RETRIES = 3;
+    private static final long MIN_SEGMENT = 1024 * 1024;
 
-    final Map<String, String> headers = new HashMap<>();
+    final FairClient client;
+    final FairClient.Config config;
+
+    /**
+     * The client snapshot's own map until the first change, own copy after it
+     */
+    HeaderMap headers;
     Supplier<byte[]> chunksWriter;
     Consumer<byte[]> chunkReader;
+    Consumer<ByteBuffer> bufferReader;
     FairErrorHandler errorHandler;
     Executor executor;
     Proxy proxy;
+    Transport transport;
     CookieKeeper cookieKeeper;
-    List<MultiPart> multiParts;
+    Multipart multipart;
     Methods method;
     Point destination;
-    boolean followRedirects, allTrusted, skipHostVerify, skipReply;
+    boolean followRedirects, allTrusted, skipHostVerify, skipReply, streamReply, publishReply, decompress;
     int timeout;
-    byte[] payload;
+    long maxBody, spillAt, reserved, compressAt;
+    String compression;
+    byte[] payload, dictionary;
+    BodySource source;
+    /**
+     * Prepared calls only: header lines encoded by the template, used while the headers are still the template's own
+     */
+    byte[] encoded;
+    String origin;
+
+    private boolean ownHeaders;
+
+    FairBase(final FairClient client, final Point destination) {
+        this.client = client;
+        this.destination = destination;
 
-    private ObjectMapper om;
+        config = client.config();
+        headers = config.headers;
+        proxy = config.proxy;
+        transport = config.transport;
+        cookieKeeper = client.keeper;
+        executor = config.executor;
+        maxBody = config.maxBody;
+        spillAt = config.spillAt;
+        decompress = config.decompress;
+        errorHandler = config.handler;
+    }
 
-    FairBase(final Point destination) {
+    /**
+     * Invocation of a prepared call: everything but the destination and the body is the template's, taken by reference
+     */
+    FairBase(final FairBase template, final Point destination) {
         this.destination = destination;
-        proxy = Fair.commonProxy.get();
-        cookieKeeper = Fair.commonKeeper;
 
-        executor = Fair.commonExecutor.get();
+        client = template.client;
+        config = template.config;
+        headers = template.headers;
+        encoded = template.encoded;
+        origin = template.origin;
+        method = template.method;
+        proxy = template.proxy;
+        transport = template.transport;
+        cookieKeeper = template.cookieKeeper;
+        executor = template.executor;
+        errorHandler = template.errorHandler;
+        chunkReader = template.chunkReader;
+        bufferReader = template.bufferReader;
+        followRedirects = template.followRedirects;
+        allTrusted = template.allTrusted;
+        skipHostVerify = template.skipHostVerify;
+        skipReply = template.skipReply;
+        streamReply = template.streamReply;
+        publishReply = template.publishReply;
+        decompress = template.decompress;
+        timeout = template.timeout;
+        maxBody = template.maxBody;
+        spillAt = template.spillAt;
+        compression = template.compression;
+        compressAt = template.compressAt;
+        dictionary = template.dictionary;
+    }
+
+    /**
+     * Frozen copy for PreparedCall: per-call headers resolved once, then encoded the way the native engine sends them
+     */
+    FairBase template(final Methods method) {
+        if (destination.schema != Schemas.https && destination.schema != Schemas.http)
+            throw new IllegalArgumentException("Unknown call protocol");
+
+        final FairBase template = new FairBase(this, destination);
+        final HeaderMap hh = headers.copy();
 
-        if (!isEmpty(Fair.commonHeaders)) headers.putAll(Fair.commonHeaders);
+        hh.remove(Headers.ContentLength);
+        hh.remove(Headers.TransferEncoding);
+
+        if (!hh.containsKey(ContentType))
+            hh.add(ContentType, BINARY.toString());
+
+        if (decompress && !hh.containsKey(AcceptEncoding))
+            hh.add(AcceptEncoding, "gzip, deflate");
+
+        template.method = method;
+        template.headers = hh.freeze();
+        template.encoded = Http1Engine.headers(new Route(destination, proxy, allTrusted, skipHostVerify), template.headers);
+        template.origin = destination.schema + "://" + destination.host + ":" + destination.port;
+
+        return template;
+    }
+
+    private HeaderMap headers() {
+        if (!ownHeaders) {
+            headers = headers.copy();
+            ownHeaders = true;
+        }
 
-        errorHandler = Fair.commonHandler.get();
+        return headers;
     }
 
     void contentType(final MimeType contentType) {
@@ -97,7 +219,6 @@ class FairBase {
     FairSocket websocket(final SocketConsumer consumer, Collection<IExtension> extensions, Collection<IProtocol> protocols) {
         final CDBuilder builder = CDBuilder.start(destination.uri().toASCIIString(), Methods.GET.name());
         final FairSocket fairSocket = new FairSocket();
-        final Map<String, String> hh = new HashMap<>(0);
 
         try {
             if (isEmpty(extensions)) extensions = Collections.singletonList(new DefaultExtension());
@@ -119,23 +240,28 @@ class FairBase {
 
             Socket socket = new Socket(proxy);
 
-            if (destination.schema == Schemas.wss) {
-                final SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
-                sslContext.init(null, allTrusted ? trustAllManager : null, null);
-
-                socket = sslContext.getSocketFactory().createSocket(socket, destination.host, destination.port, true);
-            }
-
             socket.setTcpNoDelay(false);
             socket.setReuseAddress(false);
 
             socket.connect(new InetSocketAddress(destination.host, destination.port), timeout);
 
-            final InputStream is = socket.getInputStream();
+            if (timeout > 0)
+                socket.setSoTimeout(timeout);
+
+            if (destination.schema == Schemas.wss) {
+                final SSLSocket tls = (SSLSocket) TlsContexts.socketFactory(allTrusted, !skipHostVerify).createSocket(socket, destination.host, destination.port, true);
+                final long begun = System.nanoTime();
+
+                tls.startHandshake();
+                builder.handshake((System.nanoTime() - begun) / 1_000_000);
+
+                socket = tls;
+            }
+
             final OutputStream os = socket.getOutputStream();
 
             os.write(("GET " + destination.descriptor() + " HTTP/1.1\r\n").getBytes(StandardCharsets.US_ASCII));
-            headers.forEach((k, v) -> {
+            headers.forEachField((k, v) -> {
                 try {
                     os.write(safeHeaderRecord(k, v).getBytes(StandardCharsets.US_ASCII));
                 } catch (final Exception ignore) {
@@ -145,37 +271,22 @@ class FairBase {
             os.flush();
             builder.written(0);
 
-            String line = readHeaderLine(is);
-
-            if (line == null) throw new IllegalStateException("No headers");
-
-            final String[] firstLineTokens = line.split(" ", 3);
+            final HeadParser parser = new HeadParser();
+            final InputStream is = head(socket.getInputStream(), parser);
 
-            if (firstLineTokens.length != 3) throw new IllegalStateException("Invalid status line: " + line);
+            if (is == null) throw new IllegalStateException(parser.empty() ? "No headers" : "Incomplete handshake");
 
-            final int code = getInt(firstLineTokens[1]);
-            builder.responseStarted(code, firstLineTokens[2]);
+            builder.responseStarted(parser.code(), parser.message());
 
-            if (code != 101)
-                throw new IllegalStateException("Invalid status code received: " + firstLineTokens[1] + " Status line: " + line);
+            if (parser.code() != 101)
+                throw new IllegalStateException("Invalid status code received: " + parser.code() + " Status line: " + parser.version() + " " + parser.code() + " " + parser.message());
 
-            if (!"HTTP/1.1".equalsIgnoreCase(firstLineTokens[0]))
-                throw new IllegalStateException("Invalid status line received: " + firstLineTokens[0] + " Status line: " + line);
-
-            line = readHeaderLine(is);
-            while (line != null && !line.isEmpty()) {
-                String[] pair = line.split(":", 2);
-                if (pair.length != 2) throw new IllegalStateException("not an http header");
-
-                hh.put(notNull(pair[0]), notNull(pair[1]));
-
-                line = readHeaderLine(is);
-            }
+            if (!"HTTP/1.1".equals(parser.version()))
+                throw new IllegalStateException("Invalid status line received: " + parser.version());
 
+            final HeaderMap hh = parser.headers();
             builder.responseDone(0, new byte[0], hh, false);
 
-            if (line == null) throw new IllegalStateException("Incomplete handshake");
-
             if (hh.get(SecWebsocketAccept) == null) throw new IllegalStateException("Missing Sec-WebSocket-Accept");
 
             if (!hh.get(SecWebsocketAccept).equals(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA1").digest((headers.get(SecWebsocketKey) + RFC_KEY_UUID).getBytes()))))
@@ -188,17 +299,19 @@ class FairBase {
 
             socket.setSoTimeout(50);
 
-            fairSocket.init(is, os, consumer, extension, errorHandler);
+            fairSocket.init(is, os, consumer, extension, errorHandler, client.budget);
 
             if (executor != null) executor.execute(fairSocket);
-            else ForkJoinPool.commonPool().execute(fairSocket);
+            else Threads.start("fairhttp-ws-" + destination.host, fairSocket);
         } catch (final Exception e) {
             errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
         }
 
         fairSocket.callData = builder.data();
-        if (Fair.callTracer.get() != null)
-            Fair.callTracer.get().accept(fairSocket.callData.trace());
+        client.finished(fairSocket.callData);
+
+        if (config.tracer != null)
+            config.tracer.accept(fairSocket.callData.trace());
         return fairSocket;
     }
 
@@ -208,45 +321,32 @@ class FairBase {
         if (destination.schema != Schemas.https && destination.schema != Schemas.http)
             throw new IllegalArgumentException("Unknown call protocol");
 
-        if (!isEmpty(multiParts)) {
-            final String boundary = "===" + System.currentTimeMillis() + "===";
-            contentType(MimeTypes.MULTIPART + "; boundary=" + boundary);
-
-            try (final ByteArrayOutputStream os = new ByteArrayOutputStream(1024 * 128)) {
-                for (final MultiPart p : multiParts) {
-                    os.write(FEED);
-                    os.write(("--" + boundary).getBytes(StandardCharsets.ISO_8859_1));
-                    os.write(FEED);
-                    os.write((Headers.ContentDisposition + ":form-data;charset=UTF-8;name=\"" + p.partName + "\";" + (isEmpty(p.fileName) ? "" : "filename=\"" + p.fileName + "\"")).getBytes(StandardCharsets.UTF_8));
-                    os.write(FEED);
-                    os.write((Headers.ContentType + ": " + p.partContentType.toString()).getBytes());
-                    os.write(FEED);
-                    os.write((ContentLength + ": " + p.part.length).getBytes());
-                    os.write(FEED);
-                    os.write((Headers.TransferEncoding + ": binary").getBytes());
-                    os.write(FEED);
-                    os.write(FEED);
-                    os.write(p.part);
-                    os.write(FEED);
-                }
+        if (multipart != null && !multipart.isEmpty()) {
+            contentType(MimeTypes.MULTIPART + "; boundary=" + multipart.boundary);
 
-                os.write(FEED);
-                os.write(("--" + boundary + "--").getBytes());
-                os.write(FEED);
+            source = multipart;
+            multipart = null;
+        }
 
-                os.flush();
+        if (compression != null && !(source instanceof Compressed)) {
+            final BodySource plain = body();
 
-                payload = os.toByteArray();
+            if (plain.length() < 0 || (plain.length() > 0 && plain.length() >= compressAt)) {
+                source = new Compressed(plain, compression, dictionary, Deflater.DEFAULT_COMPRESSION);
+                chunksWriter = null;
 
-                multiParts.clear();
+                headers().put(Headers.Encoding, compression);
+                headers().remove(Headers.ContentLength);
             }
         }
 
-        if (chunksWriter != null) header(Headers.TransferEncoding, "chunked");
-        else {
-            if (headers.get(ContentType) == null) contentType(BINARY);
+        if (encoded == null) { // prepared calls leave framing to the engines, which derive it from the body
+            if (chunksWriter != null || (source != null && source.length() < 0)) header(Headers.TransferEncoding, "chunked");
+            else {
+                if (headers.get(ContentType) == null) contentType(BINARY);
 
-            header(Headers.ContentLength, String.valueOf(payload == null ? 0 : payload.length));
+                header(Headers.ContentLength, String.valueOf(source != null ? source.length() : payload == null ? 0 : payload.length));
+            }
         }
 
         loadCookies();
@@ -255,15 +355,23 @@ class FairBase {
     void header(final String name0, final String value) {
         final String name = notNull(name0);
         if (!isEmpty(name)) {
-            if (isEmpty(value)) headers.remove(name);
-            else {
-                if (headers.get(name) == null || name.equals(Headers.ContentType) || name.equals(Headers.ContentLength))
-                    headers.put(name, notNull(value));
-                else headers.merge(name, notNull(value).replaceFirst("^ +", ""), (a, b) -> a + "; " + b);
-            }
+            if (isEmpty(value)) {
+                if (headers.containsKey(name)) headers().remove(name);
+            } else if (name.equalsIgnoreCase(SendCookies) && headers.containsKey(name)) // one Cookie line for all pairs
+                headers().put(name, headers.get(name) + "; " + notNull(value).replaceFirst("^ +", ""));
+            else if (single(name))
+                headers().put(name, notNull(value));
+            else
+                headers().add(name, notNull(value));
         }
     }
 
+    private static boolean single(final String name) {
+        return name.equalsIgnoreCase(ContentType) || name.equalsIgnoreCase(ContentLength) || name.equalsIgnoreCase(TransferEncoding)
+                || name.equalsIgnoreCase(Host) || name.equalsIgnoreCase(Auth) || name.equalsIgnoreCase(Upgrade) || name.equalsIgnoreCase(Connection)
+                || name.equalsIgnoreCase(Encoding) || name.equalsIgnoreCase(Range) || name.equalsIgnoreCase(IfRange) || name.equalsIgnoreCase("User-Agent");
+    }
+
     void withChunksWriter(final Supplier<byte[]> chunksWriter) {
         contentType(BINARY);
         header(Headers.TransferEncoding, "chunked");
@@ -279,13 +387,42 @@ class FairBase {
         executor = null;
         proxy = Proxy.NO_PROXY;
         cookieKeeper = new CookieKeeper();
-        headers.clear();
+        headers = new HeaderMap();
+        ownHeaders = true;
     }
 
     void multipart(final String filename, final String partName, final MimeType partContentType, final byte[] partBody) {
-        if (multiParts == null) multiParts = new ArrayList<>(1);
+        multipart(filename, partName, partContentType, BodySource.of(partBody));
+    }
 
-        multiParts.add(new MultiPart(partName, partContentType, partBody, filename));
+    void multipart(final String filename, final String partName, final MimeType partContentType, final Path partBody) {
+        try {
+            multipart(filename, partName, partContentType, BodySource.file(partBody));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void multipart(final String filename, final String partName, final MimeType partContentType, final BodySource partBody) {
+        if (multipart == null) multipart = new Multipart("===" + System.currentTimeMillis() + "===");
+
+        multipart.add(partName, filename, partContentType.toString(), partBody);
+    }
+
+    void transport(final Transport transport) {
+        this.transport = transport == null ? config.transport : transport;
+    }
+
+    void compression(final String encoding, final long threshold, final byte[] dictionary) {
+        if (encoding != null && !"gzip".equals(encoding) && !"deflate".equals(encoding))
+            throw new IllegalArgumentException("Unsupported request encoding: " + encoding + ", gzip or deflate expected");
+
+        if (dictionary != null && !"deflate".equals(encoding))
+            throw new IllegalArgumentException("Preset dictionary needs deflate encoding");
+
+        compression = encoding;
+        compressAt = Math.max(0, threshold);
+        this.dictionary = dictionary;
     }
 
     void proxy(final Proxy proxy) {
@@ -307,6 +444,15 @@ class FairBase {
                 case SKIP_RESPONSE:
                     skipReply = state;
                     break;
+                case STREAM_RESPONSE:
+                    streamReply = state;
+                    break;
+                case PUBLISH_RESPONSE:
+                    publishReply = state;
+                    break;
+                case DECOMPRESS_RESPONSE:
+                    decompress = state;
+                    break;
             }
         }
     }
@@ -333,206 +479,618 @@ class FairBase {
     }
 
     FairResponse httpCall() {
-        final CDBuilder builder = CDBuilder
-                .start(destination.url().toExternalForm(), method.name(), headers, payload, chunksWriter != null)
-                .options(timeout, followRedirects, allTrusted, skipHostVerify, skipReply);
+        final CDBuilder builder = builder();
+        final FairResponse result = new FairResponse();
 
-        FairResponse result = new FairResponse();
+        try {
+            prepareHttpData();
+            if (decompress && headers.get(AcceptEncoding) == null) header(AcceptEncoding, "gzip, deflate");
+            reserve(payload == null || chunksWriter != null || source != null ? 0 : payload.length);
+
+            final TransportResponse response = transport.exchange(requestHead(), body());
+
+            try {
+                read(response, result, builder);
+            } finally {
+                if (result.stream == null && result.publisher == null)
+                    response.close();
+            }
+        } catch (final Exception e) {
+            errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
+        }
+
+        return finish(result, builder);
+    }
+
+    /**
+     * Only the exchange is asynchronous, the buffered response is processed on the executor (common pool if none)
+     */
+    CompletionStage<FairResponse> httpCallAsync() {
+        final CDBuilder builder = builder();
+        final FairResponse result = new FairResponse();
+        final CompletableFuture<TransportResponse> exchange;
 
         try {
             prepareHttpData();
+            if (decompress && headers.get(AcceptEncoding) == null) header(AcceptEncoding, "gzip, deflate");
+            reserve(payload == null || chunksWriter != null || source != null ? 0 : payload.length);
+
+            exchange = ((AsyncTransport) transport).exchangeAsync(requestHead(), body());
+        } catch (final Exception e) {
+            errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
+
+            return CompletableFuture.completedFuture(finish(result, builder));
+        }
 
-            final HttpURLConnection huc = (HttpURLConnection) destination.url().openConnection(proxy);
-            huc.setDoInput(!skipReply); // read
-            huc.setDoOutput(!isEmpty(payload) || chunksWriter != null); // write
-            huc.setRequestMethod(method.name());
-            huc.setInstanceFollowRedirects(followRedirects);
-            huc.setUseCaches(false);
+        final BiFunction<TransportResponse, Throwable, FairResponse> handler = (response, error) -> {
+            try {
+                if (error != null)
+                    throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
 
-            if (timeout > 0) {
-                huc.setConnectTimeout(timeout);
-                huc.setReadTimeout(timeout);
+                try (response) {
+                    read(response, result, builder);
+                }
+            } catch (final Throwable e) {
+                final Throwable t = e instanceof UncheckedIOException ? e.getCause() : e;
+                errorHandler.exception(t.getMessage(), t, builder.broken(t).data());
             }
 
-            headers.forEach(huc::setRequestProperty);
+            return finish(result, builder);
+        };
+
+        return executor != null ? exchange.handleAsync(handler, executor) : exchange.handleAsync(handler);
+    }
+
+    /**
+     * Selector driven when the transport can, otherwise the blocking call on the executor
+     */
+    CompletionStage<FairResponse> httpCallFuture() {
+        if (transport instanceof AsyncTransport && !streamReply && !publishReply && spillAt <= 0)
+            return httpCallAsync();
+
+        if (executor != null)
+            return CompletableFuture.supplyAsync(this::httpCall, executor);
+
+        return CompletableFuture.supplyAsync(this::httpCall);
+    }
+
+    private CDBuilder builder() {
+        return CDBuilder
+                .start(origin != null ? origin + destination.descriptor() : destination.url().toExternalForm(), method.name(), headers, payload, chunksWriter != null)
+                .options(timeout, followRedirects, allTrusted, skipHostVerify, skipReply);
+    }
+
+    private RequestHead requestHead() {
+        return new RequestHead(method.name(), destination, headers, proxy, timeout, followRedirects, allTrusted, skipHostVerify, maxBody, ownHeaders ? null : encoded);
+    }
+
+    private void read(final TransportResponse response, final FairResponse result, final CDBuilder builder) throws Exception {
+        final ResponseHead head = head(response, result, builder);
+        final long held = response.transfer(client.budget);
+        reserved += held;
+
+        long read = 0;
+        final boolean chunked = head.chunked;
 
-            if (destination.schema == Schemas.https) {
-                if (allTrusted) {
-                    final SSLContext sslContext = SSLContext.getInstance("SSL");
-                    sslContext.init(null, trustAllManager, getRnd());
-                    ((HttpsURLConnection) huc).setSSLSocketFactory(sslContext.getSocketFactory());
+        final Inflating decoder = decompress && !skipReply ? Inflating.of(response.body(), head.header(Encoding)) : null;
+        final InputStream is = decoder != null ? decoder : response.body();
+
+        if (decoder != null) { // the body handed out is the decoded one
+            result.headers.remove(Encoding);
+            result.headers.remove(ContentLength);
+        }
+
+        if ((streamReply || publishReply) && !skipReply) {
+            result.stream = new FilterInputStream(is) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        response.close();
+                    }
                 }
+            };
 
-                if (skipHostVerify) ((HttpsURLConnection) huc).setHostnameVerifier((hostname, session) -> true);
+            if (publishReply) {
+                result.publisher = new ReplyPublisher(result.stream, executor != null ? executor : Threads.executor());
+                result.stream = null;
             }
 
-            huc.connect();
-
-            long written = 0;
-            if (!isEmpty(payload) || chunksWriter != null)
-                try (final OutputStream os = huc.getOutputStream()) {
-                    if ("chunked".equals(headers.get(Headers.TransferEncoding))) {
-                        byte[] chunk;
-
-                        if (chunksWriter != null) while (!isEmpty(chunk = chunksWriter.get())) {
-                            os.write(Integer.toHexString(chunk.length).getBytes());
-                            os.write(FEED);
-                            os.write(chunk);
-                            os.write(FEED);
-                            os.flush();
-                            written += chunk.length;
+            builder.responseDone(0, null, result.headers, chunked);
+            return;
+        }
+
+        final long limit = maxBody > 0 ? maxBody : Long.MAX_VALUE;
+
+        if (!skipReply) {
+            try {
+                if (head.contentLength > limit)
+                    throw tooLarge(limit);
+
+                if (bufferReader != null) {
+                    final byte[] array = BufferPool.take(BufferPool.MEDIUM);
+                    final ByteBuffer buf = ByteBuffer.wrap(array);
+                    int n;
+
+                    try {
+                        while ((n = is.read(array)) != -1) {
+                            if ((read += n) > limit)
+                                throw tooLarge(limit);
+
+                            buf.clear().limit(n);
+                            bufferReader.accept(buf);
                         }
 
-                        os.write(0);
-                        os.write(FEED);
-                        os.write(FEED);
-                    } else if (!isEmpty(payload)) {
-                        os.write(payload);
-                        written = payload.length;
+                        bufferReader.accept(buf.clear().limit(0));
+                    } finally {
+                        BufferPool.give(array);
                     }
+                } else if (chunked && chunkReader != null) {
+                    final byte[] buf = BufferPool.take(BufferPool.MEDIUM);
+                    int chunkLen;
 
-                    os.flush();
+                    try {
+                        while ((chunkLen = is.read(buf)) > 0) {
+                            if ((read += chunkLen) > limit)
+                                throw tooLarge(limit);
+
+                            chunkReader.accept(Arrays.copyOf(buf, chunkLen));
+                        }
+                    } finally {
+                        BufferPool.give(buf);
+                    }
+
+                    chunkReader.accept(new byte[0]);
+                } else if (decoder == null && !chunked && head.contentLength > 0 && head.contentLength <= MAX_ARRAY && (spillAt <= 0 || head.contentLength <= spillAt)) {
+                    reserve(head.contentLength - held);
+                    result.body = readExactly(is, (int) head.contentLength);
+                    read = result.body.length;
+                } else
+                    read = buffer(is, result, limit);
+            } finally {
+                if (decoder != null) {
+                    decoder.close();
+                    builder.decoded(decoder.encoding(), decoder.wire());
                 }
+            }
+        }
+
+        head.trailers.forEachField((k, v) -> {
+            if (!head.headers.containsKey(k))
+                result.headerMap().add(k, v);
+        });
 
-            builder.written(written);
+        builder.responseDone(read, result.body, result.headers, chunked);
+    }
 
-            result.code = huc.getResponseCode();
-            result.message = huc.getResponseMessage();
+    private ResponseHead head(final TransportResponse response, final FairResponse result, final CDBuilder builder) throws Exception {
+        final ResponseHead head = response.head();
+        builder.written(head.written, head.writtenAt).handshake(head.handshake);
 
-            builder.responseStarted(result.code, result.message);
+        result.code = head.code;
+        result.message = head.message;
 
-            String headerName;
-            for (int i = 1;  // 0 - это status line (код и сообщение)
-                 (headerName = huc.getHeaderFieldKey(i)) != null; i++)
-                result.headers.put(headerName, huc.getHeaderField(headerName));
+        builder.responseStarted(result.code, result.message);
 
-            cookieKeeper.save(huc);
+        result.headers.clear();
+        result.headerMap().addAll(head.headers);
 
-            if (errorHandler.isError(result.code) && errorHandler.breakOnHttpErrors())
-                throw errorHandler.throwOnHttpErrors().getDeclaredConstructor(String.class).newInstance("Interrupting on http error response: " + result.code + " [" + notNull(result.message, "no response message") + "]");
+        head.headers(Headers.GetCookies).forEach(cookieKeeper::save);
 
-            long read = 0;
-            final boolean chunked = notNull(huc.getContentEncoding()).equalsIgnoreCase("chunked");
+        if (errorHandler.isError(result.code) && errorHandler.breakOnHttpErrors())
+            throw errorHandler.throwOnHttpErrors().getDeclaredConstructor(String.class).newInstance("Interrupting on http error response: " + result.code + " [" + notNull(result.message, "no response message") + "]");
 
-            final InputStream is = result.code >= 400 ? huc.getErrorStream() : huc.getInputStream();
+        return head;
+    }
 
-            if (!skipReply)
-                try (final ByteArrayOutputStream bos = new ByteArrayOutputStream(1024 * 64)) {
-                    if (chunked) {
-                        int chunkLen;
+    /**
+     * Body goes straight into the file. A dropped connection is resumed with Range from the bytes already on disk,
+     * guarded by If-Range when the server gave a strong ETag or Last-Modified; a 200 instead of 206 restarts from zero.
+     */
+    FairResponse download(final Path target, final boolean resume) {
+        try {
+            prepareHttpData();
+        } catch (final Exception e) {
+            final CDBuilder builder = builder();
+            errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
 
-                        if (chunkReader != null) {
-                            while ((chunkLen = readChunkLen(is)) > 0) {
-                                chunkReader.accept(readChunkBody(chunkLen, is));
-                                read += chunkLen;
-                            }
+            return finish(new FairResponse(), builder);
+        }
 
-                            chunkReader.accept(new byte[0]);
-                        } else {
-                            while ((chunkLen = readChunkLen(is)) > 0) bos.write(readChunkBody(chunkLen, is));
+        return stream(target, resume);
+    }
 
-                            bos.flush();
-                            result.body = bos.toByteArray();
-                            read = result.body.length;
-                        }
-                    } else {
-                        final long len = huc.getContentLengthLong();
+    /**
+     * Single stream download of an already prepared call
+     */
+    private FairResponse stream(final Path target, final boolean resume) {
+        final CDBuilder builder = builder();
+        final FairResponse result = new FairResponse();
+        final long started = System.currentTimeMillis();
+        long offset = 0, position = 0, total = -1;
+        int resumes = 0;
+
+        try (final FileChannel fc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (resume)
+                offset = position = fc.size();
+            else
+                fc.truncate(0);
+
+            String validator = null;
+
+            while (true) {
+                if (position > 0) {
+                    headers().put(Range, "bytes=" + position + "-");
+
+                    if (validator != null)
+                        headers().put(IfRange, validator);
+                }
 
-                        if (len > 0) for (long i = 0; i < len; i++)
-                            bos.write(is.read());
-                        else copy(is, bos);
+                try (final TransportResponse response = transport.exchange(requestHead(), body())) {
+                    final ResponseHead head = head(response, result, builder);
 
-                        bos.flush();
-                        result.body = bos.toByteArray();
-                        read = result.body.length;
+                    if (head.code == 416 && position > 0 && total(head.header(ContentRange)) == position) {
+                        total = position;
+                        break;
                     }
+
+                    if (head.code == 206) {
+                        final String range = head.header(ContentRange);
+
+                        if (range == null || !range.trim().startsWith("bytes " + position + "-"))
+                            throw new ProtocolException("Unexpected Content-Range for offset " + position + ": " + range);
+
+                        total = total(range);
+                    } else if (head.code == 200) {
+                        if (position > 0) {
+                            fc.truncate(0);
+                            offset = position = 0;
+                        }
+
+                        total = head.chunked ? -1 : head.contentLength;
+                    } else { // error reply is the response body, bounded and budgeted like read()
+                        buffer(response.body(), result, maxBody > 0 ? maxBody : Long.MAX_VALUE);
+                        break;
+                    }
+
+                    final String etag = head.header(ETag);
+                    validator = etag != null && !etag.startsWith("W/") ? etag : head.header(LastModified);
+
+                    final ReadableByteChannel in = Channels.newChannel(response.body());
+                    long n;
+
+                    while ((n = fc.transferFrom(in, position, 1024 * 1024)) > 0)
+                        position += n;
+
+                    if (total >= 0 && position < total)
+                        throw new EOFException("Unexpected end of body: " + position + " of " + total + " bytes");
+
+                    break;
+                } catch (final IOException e) {
+                    if (resumes >= DOWNLOAD_RETRIES || result.code == 0 || e instanceof ProtocolException)
+                        throw e;
+
+                    resumes++;
+                    position = fc.size();
                 }
+            }
 
-            builder.responseDone(read, result.body, result.headers, chunked);
+            fc.force(false);
         } catch (final Exception e) {
             errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
         }
 
-        result.callData = builder.data();
+        if (ownHeaders) {
+            headers.remove(Range);
+            headers.remove(IfRange);
+        }
+        builder.responseDone(position - offset, result.body, result.headers, false)
+                .download(target.toString(), offset, position - offset, total, System.currentTimeMillis() - started, resumes);
 
-        if (Fair.replyVerificator.get() != null)
-            Fair.replyVerificator.get().accept(result);
+        return finish(result, builder);
+    }
 
-        if (Fair.callTracer.get() != null)
-            Fair.callTracer.get().accept(result.callData.trace());
+    /**
+     * HEAD first, then the file is preallocated and every byte range is fetched on its own connection straight into its offset.
+     * A server without byte ranges, or one answering a range with the whole body, gets the single stream download.
+     */
+    FairResponse download(final Path target, final int segments) {
+        final CDBuilder builder = builder();
+        final FairResponse result = new FairResponse();
+        final long started = System.currentTimeMillis();
+        final AtomicInteger resumes = new AtomicInteger(0);
+        long total = -1, received = 0;
 
-        return result;
+        try {
+            prepareHttpData();
+
+            final String validator;
+
+            try (final TransportResponse response = transport.exchange(new RequestHead(Methods.HEAD.name(), destination, headers, proxy, timeout, followRedirects, allTrusted, skipHostVerify), body())) {
+                final ResponseHead head = head(response, result, builder);
+                final String etag = head.header(ETag);
+
+                if (head.code == 200 && "bytes".equalsIgnoreCase(notNull(head.header(AcceptRanges))))
+                    try {
+                        total = Long.parseLong(notNull(head.header(ContentLength)));
+                    } catch (final NumberFormatException ignore) {
+                    }
+
+                validator = etag != null && !etag.startsWith("W/") ? etag : head.header(LastModified);
+            }
+
+            final int n = (int) Math.min(segments, total / MIN_SEGMENT);
+
+            if (n < 2)
+                return stream(target, false);
+
+            final List<CompletableFuture<Long>> parts = new ArrayList<>(n);
+            final AtomicBoolean abort = new AtomicBoolean(false);
+            final boolean ranged;
+
+            try (final FileChannel fc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                fc.truncate(0);
+                fc.write(ByteBuffer.wrap(new byte[1]), total - 1);
+
+                final Executor pool = executor != null ? executor : Threads.executor();
+                final long size = total / n;
+
+                for (int i = 1; i < n; i++) {
+                    final long from = i * size, to = i == n - 1 ? total - 1 : from + size - 1;
+
+                    parts.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return segment(fc, from, to, validator, resumes, abort);
+                        } catch (final IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, pool));
+                }
+
+                try {
+                    boolean all = (received = segment(fc, 0, size - 1, validator, resumes, abort)) >= 0;
+
+                    for (final CompletableFuture<Long> part : parts)
+                        try {
+                            final long got = part.join();
+
+                            all &= got >= 0;
+                            received += Math.max(0, got);
+                        } catch (final CompletionException e) {
+                            throw e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                        }
+
+                    ranged = all;
+                } catch (final Throwable e) {
+                    abort.set(true);
+
+                    throw e;
+                } finally { // the channel must outlive every segment writing to it
+                    CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).handle((v, t) -> null).join();
+                }
+
+                if (ranged)
+                    fc.force(false);
+            }
+
+            if (!ranged)
+                return stream(target, false);
+        } catch (final Throwable e) {
+            errorHandler.exception(e.getMessage(), e, builder.broken(e).data());
+        }
+
+        builder.responseDone(received, null, result.headers, false)
+                .download(target.toString(), 0, received, total, System.currentTimeMillis() - started, resumes.get());
+
+        return finish(result, builder);
     }
 
-    void payloadAsJson(final Object o) {
-        contentType(JSON);
+    /**
+     * @return bytes written, -1 if the server did not answer with the requested range or another segment gave up; the first
+     * to get no range stops the rest before their next attempt
+     */
+    private long segment(final FileChannel fc, final long from, final long to, final String validator, final AtomicInteger resumes, final AtomicBoolean abort) throws IOException {
+        long position = from;
+        int attempt = 0;
 
-        if (o != null) try {
-            if (om == null) om = new ObjectMapper();
+        while (true) {
+            if (abort.get())
+                return -1;
 
-            payload = om.valueToTree(o).toString().getBytes(StandardCharsets.UTF_8);
-        } catch (final Exception ignore) {
+            final HeaderMap hh = headers.copy();
+            hh.put(Range, "bytes=" + position + "-" + to);
+
+            if (validator != null)
+                hh.put(IfRange, validator);
+
+            try (final TransportResponse response = transport.exchange(new RequestHead(method.name(), destination, hh, proxy, timeout, followRedirects, allTrusted, skipHostVerify), body())) {
+                final ResponseHead head = response.head();
+
+                if (head.code != 206 || !notNull(head.header(ContentRange)).trim().startsWith("bytes " + position + "-")) {
+                    abort.set(true);
+                    return -1;
+                }
+
+                final ReadableByteChannel in = Channels.newChannel(response.body());
+                long n;
+
+                while (position <= to && (n = fc.transferFrom(in, position, to + 1 - position)) > 0)
+                    position += n;
+
+                if (position <= to)
+                    throw new EOFException("Unexpected end of range " + from + "-" + to + " at " + position);
+
+                return to + 1 - from;
+            } catch (final IOException e) {
+                if (abort.get())
+                    return -1;
+
+                if (attempt++ >= DOWNLOAD_RETRIES)
+                    throw e;
+
+                resumes.incrementAndGet();
+            }
         }
     }
 
-    private byte[] readChunkBody(final int size, final InputStream is) throws IOException {
-        final byte[] body = new byte[size];
+    private static long total(final String contentRange) {
+        final int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
 
-        for (int i = 0; i < size; i++)
-            body[i] = (byte) is.read();
+        if (slash < 0 || contentRange.endsWith("*"))
+            return -1;
 
-        return body;
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
     }
 
-    private String safeHeaderRecord(final String key, final String value) {
-        if (isEmpty(key) || isEmpty(value))
-            return "";
+    /**
+     * Heap until the spill threshold, past it the body continues into a deleted temp file mapped read-only
+     */
+    private long buffer(final InputStream is, final FairResponse result, final long limit) throws IOException {
+        final long heap = spillAt > 0 ? Math.min(spillAt, MAX_ARRAY) : MAX_ARRAY;
 
-        return key + ": " + value + "\r\n";
+        try (final PooledBytes bytes = new PooledBytes()) {
+            while (bytes.readFrom(is) != -1) {
+                final long read = bytes.size();
+
+                if (read > limit)
+                    throw tooLarge(limit);
+
+                if (read > heap) {
+                    if (spillAt <= 0)
+                        throw tooLarge(heap);
+
+                    return spill(is, result, bytes, limit);
+                }
+
+                if (read > reserved)
+                    reserve(Math.max(BufferPool.LARGE, read - reserved));
+            }
+
+            result.body = bytes.toByteArray();
+
+            return bytes.size();
+        }
     }
 
-    private String readHeaderLine(final InputStream is) throws IOException {
-        byte b, prev = -1;
+    private static long spill(final InputStream is, final FairResponse result, final PooledBytes head, final long limit) throws IOException {
+        final long mappable = Math.min(limit, Integer.MAX_VALUE);
+        final byte[] array = BufferPool.take(BufferPool.LARGE);
+        final ByteBuffer buf = ByteBuffer.wrap(array);
+        long read = head.size();
+        int n;
+
+        try (final FileChannel fc = FileChannel.open(Files.createTempFile("fairhttp", ".body"), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            head.writeTo(fc);
 
-        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(4096)) {
-            while ((b = (byte) is.read()) != -1) {
-                if (b == '\n' && prev == '\r')
-                    return new String(Arrays.copyOfRange(os.toByteArray(), 0, os.size() - 1), StandardCharsets.US_ASCII);
+            while ((n = is.read(array)) != -1) {
+                if ((read += n) > mappable)
+                    throw tooLarge(mappable);
 
-                os.write(b);
-                prev = b;
+                buf.clear().limit(n);
+
+                while (buf.hasRemaining())
+                    fc.write(buf);
             }
+
+            result.spilled = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+        } finally {
+            BufferPool.give(array);
         }
 
-        return null;
+        return read;
     }
 
-    private int readChunkLen(final InputStream is) throws IOException {
-        int b, prev = '0';
+    private static ProtocolException tooLarge(final long limit) {
+        return new ProtocolException("Response body exceeds " + limit + " bytes, use download() or streamReply() for larger ones");
+    }
 
-        try (final ByteArrayOutputStream os = new ByteArrayOutputStream(8)) {
-            while ((b = is.read()) != '\n' || prev != '\r') {
-                if (b == '\n')
-                    os.reset();
-                else if (Character.digit(b, 16) != -1)
-                    os.write(b);
-                prev = b;
-            }
+    /**
+     * Known length: the final array is allocated once and filled by block reads
+     */
+    private static byte[] readExactly(final InputStream is, final int len) throws IOException {
+        final byte[] body = new byte[len];
+        int off = 0, n;
+
+        while (off < len && (n = is.read(body, off, len - off)) > 0)
+            off += n;
+
+        if (off < len)
+            throw new EOFException("Unexpected end of body: " + off + " of " + len + " bytes read");
+
+        return body;
+    }
+
+    /**
+     * Held until the call is finished. Growth goes past the budget limit only while the call is its only holder
+     */
+    private void reserve(final long bytes) throws IOException {
+        client.budget.acquire(bytes, reserved);
+        reserved += Math.max(0, bytes);
+    }
+
+    private FairResponse finish(final FairResponse result, final CDBuilder builder) {
+        client.budget.release(reserved);
+        reserved = 0;
+
+        result.callData = builder.data();
+        result.mapper = config.mapper;
+        client.finished(result.callData);
+
+        if (config.verificator != null)
+            config.verificator.accept(result);
 
-            return Integer.parseInt(os.toString(StandardCharsets.US_ASCII), 16);
+        if (config.tracer != null)
+            config.tracer.accept(result.callData.trace());
+
+        return result;
+    }
+
+    BodySource body() {
+        return chunksWriter != null ? BodySource.chunks(chunksWriter) : source != null ? source : BodySource.of(payload);
+    }
+
+    void payloadAsJson(final Object o) {
+        contentType(JSON);
+
+        if (o != null) try {
+            payload = config.mapper.valueToTree(o).toString().getBytes(StandardCharsets.UTF_8);
+        } catch (final Exception ignore) {
         }
     }
 
-    private static class MultiPart {
-        public final String partName, fileName;
-        public final MimeType partContentType;
-        public final byte[] part;
+    private String safeHeaderRecord(final String key, final String value) {
+        if (isEmpty(key) || isEmpty(value))
+            return "";
+
+        return key + ": " + value + "\r\n";
+    }
+
+    /**
+     * Reads the response head with the parser, bytes which came after it are put back in front of the stream
+     *
+     * @return stream positioned right after the head, null on eof before its end
+     */
+    private static InputStream head(final InputStream is, final HeadParser parser) throws IOException {
+        final byte[] chunk = BufferPool.take(BufferPool.SMALL);
+        final ByteBuffer window = ByteBuffer.wrap(chunk, 0, 0);
+
+        try {
+            int n;
+
+            while (!parser.feed(window))
+                if ((n = is.read(chunk)) < 0)
+                    return null;
+                else
+                    window.limit(n).position(0);
 
-        public MultiPart(final String partName, final MimeType partContentType, final byte[] part, final String fileName) {
-            this.partName = partName;
-            this.fileName = fileName;
-            this.partContentType = partContentType;
-            this.part = part;
+            return window.hasRemaining() ? new SequenceInputStream(new ByteArrayInputStream(Arrays.copyOfRange(chunk, window.position(), window.limit())), is) : is;
+        } finally {
+            BufferPool.give(chunk);
         }
     }
 }
@@ -8,11 +8,17 @@ import org.logdoc.fairhttp.helpers.SocketConsumer;
 import org.logdoc.fairhttp.structs.traits.Methods;
 import org.logdoc.fairhttp.structs.websocket.extension.IExtension;
 import org.logdoc.fairhttp.structs.websocket.protocol.IProtocol;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.Transport;
 import org.logdoc.helpers.std.MimeType;
 
+import java.io.InputStream;
 import java.net.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -25,7 +31,7 @@ public class FairCall extends Payloads implements CallSugar {
     private final FairBase base;
 
     FairCall(final Point destination) {
-        base = new FairBase(destination);
+        base = new FairBase(Fair.client, destination);
     }
 
     FairCall(final FairBase base) {
@@ -54,6 +60,15 @@ public class FairCall extends Payloads implements CallSugar {
         return this;
     }
 
+    /**
+     * Whole body in one reusable buffer per read, valid only inside the callback; an empty buffer marks the end
+     */
+    public FairCall withBufferReader(final Consumer<ByteBuffer> bufferReader) {
+        base.bufferReader = bufferReader;
+
+        return this;
+    }
+
     public FairCall errorHandler(final FairErrorHandler errorHandler) {
         base.errorHandler(errorHandler);
 
@@ -78,17 +93,58 @@ public class FairCall extends Payloads implements CallSugar {
         return this;
     }
 
+    /**
+     * Body taken from the publisher as the socket drains, length is exact or -1 (sent chunked)
+     */
+    public FairCall withPublisher(final Flow.Publisher<ByteBuffer> publisher, final long length) {
+        publisher(publisher, length);
+
+        return this;
+    }
+
     public FairCall withtOption(final Fair.Option option, final boolean state) {
         base.option(option, state);
 
         return this;
     }
 
+    /**
+     * Freezes this call into a reusable template, later changes to this FairCall do not reach it
+     */
+    public PreparedCall prepare(final Methods method) {
+        return new PreparedCall(base, method);
+    }
+
     FairResponse httpCall(final Methods method) {
         base.method = method;
         return base.httpCall();
     }
 
+    /**
+     * GET straight into the file, a dropped connection is resumed where it stopped
+     */
+    public FairResponse download(final Path target) {
+        return download(target, false);
+    }
+
+    /**
+     * @param resume continue a partial file left by an earlier call instead of overwriting it
+     */
+    public FairResponse download(final Path target, final boolean resume) {
+        base.method = Methods.GET;
+
+        return base.download(target, resume);
+    }
+
+    /**
+     * Large file over several connections at once, each fetching its own byte range
+     */
+    public FairResponse download(final Path target, final int segments) {
+        base.method = Methods.GET;
+
+        return base.download(target, segments);
+    }
+
     @Override
     public FairSocket websocket(final SocketConsumer consumer, Collection<IExtension> extensions, Collection<IProtocol> protocols) {
        return base.websocket(consumer, extensions, protocols);
@@ -106,6 +162,42 @@ public class FairCall extends Payloads implements CallSugar {
         return this;
     }
 
+    /**
+     * File part is streamed from disk when the request is sent
+     */
+    public FairCall multipart(final String filename, final String partName, final MimeType partContentType, final Path partBody) {
+        base.multipart(filename, partName, partContentType, partBody);
+
+        return this;
+    }
+
+    /**
+     * Stream part has no known length, the whole request goes chunked
+     */
+    public FairCall multipart(final String filename, final String partName, final MimeType partContentType, final InputStream partBody) {
+        base.multipart(filename, partName, partContentType, BodySource.of(partBody));
+
+        return this;
+    }
+
+    /**
+     * Longer replies abort the call instead of being buffered, 0 is no limit
+     */
+    public FairCall maxBodySize(final long bytes) {
+        base.maxBody = Math.max(0, bytes);
+
+        return this;
+    }
+
+    /**
+     * Buffered replies past this size are kept in a temporary memory-mapped file (FairResponse.spilled), 0 never spills
+     */
+    public FairCall spillThreshold(final long bytes) {
+        base.spillAt = Math.max(0, bytes);
+
+        return this;
+    }
+
     public FairCall timeout(final int timeoutMs) {
         base.timeout(timeoutMs);
 
@@ -116,12 +208,22 @@ public class FairCall extends Payloads implements CallSugar {
         base.payload = bytes;
     }
 
+    void payload(final BodySource body) {
+        base.source = body;
+    }
+
     public FairCall header(final String name, final String value) {
         base.header(name, value);
 
         return this;
     }
 
+    public FairCall transport(final Transport transport) {
+        base.transport(transport);
+
+        return this;
+    }
+
     public FairCall proxy(final Proxy proxy) {
         base.proxy(proxy);
 
@@ -151,4 +253,49 @@ public class FairCall extends Payloads implements CallSugar {
 
         return this;
     }
+
+    /**
+     * Reply body is left on the wire as FairResponse.stream, the response must be closed
+     */
+    public FairCall streamReply(final boolean state) {
+        base.streamReply = state;
+
+        return this;
+    }
+
+    /**
+     * Reply comes back after the headers, the body as FairResponse.publisher; the socket is read only on subscriber demand
+     */
+    public FairCall publishReply(final boolean state) {
+        base.publishReply = state;
+
+        return this;
+    }
+
+    /**
+     * Request bodies from threshold bytes up, and all of unknown length, go out compressed: gzip or deflate, null turns it off
+     */
+    public FairCall compressRequest(final String encoding, final long threshold) {
+        base.compression(encoding, threshold, null);
+
+        return this;
+    }
+
+    /**
+     * Deflate with a preset dictionary, for repeated payload shapes; the receiver has to inflate with the same dictionary
+     */
+    public FairCall compressRequest(final byte[] dictionary, final long threshold) {
+        base.compression("deflate", threshold, dictionary);
+
+        return this;
+    }
+
+    /**
+     * Sends Accept-Encoding: gzip, deflate and inflates the reply while it is read
+     */
+    public FairCall decompress(final boolean state) {
+        base.decompress = state;
+
+        return this;
+    }
 }
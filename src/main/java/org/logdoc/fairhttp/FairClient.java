@@ -0,0 +1,369 @@
+package org.logdoc.fairhttp;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.logdoc.fairhttp.diag.CallData;
+import org.logdoc.fairhttp.engine.AsyncEngine;
+import org.logdoc.fairhttp.engine.ConnectionPool;
+import org.logdoc.fairhttp.engine.Http1Engine;
+import org.logdoc.fairhttp.engine.Http2Engine;
+import org.logdoc.fairhttp.engine.h2.Http2Settings;
+import org.logdoc.fairhttp.flow.FairResponse;
+import org.logdoc.fairhttp.helpers.CookieKeeper;
+import org.logdoc.fairhttp.helpers.FairErrorHandler;
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+import org.logdoc.fairhttp.helpers.Threads;
+import org.logdoc.fairhttp.structs.HeaderMap;
+import org.logdoc.fairhttp.structs.Point;
+import org.logdoc.fairhttp.structs.traits.Schemas;
+import org.logdoc.fairhttp.transport.Transport;
+
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 24.10.2026 10:20
+ * fairhttp ☭ sweat and blood
+ *
+ * Owns its connection pool, engines, cookie jar, memory budget, executor and json codec; separate clients share nothing.
+ * Configuration is an immutable snapshot swapped whole on every change, a call takes it by reference and copies headers only when it changes them.
+ * Fair.url() and the Fair.common* setters work on the shared default client.
+ */
+public final class FairClient implements AutoCloseable {
+    static final FairErrorHandler defaultHandler = new FairErrorHandler() {
+        @Override
+        public void notification(final NotificationLevel level, final String notification, final CallData callData) {
+            System.out.println("FairHttp #" + callData.id + " :: " + level + " :: " + notification);
+            System.out.println(callData.trace());
+        }
+
+        @Override
+        public void exception(final String details, final Throwable t, final CallData callData) {
+            System.out.println("FairHttp #" + callData.id + " :: " + NotificationLevel.ERROR + " :: " + details + " :: " + t.getMessage());
+            t.printStackTrace();
+            System.out.println(callData.trace());
+        }
+    };
+
+    final CookieKeeper keeper = new CookieKeeper();
+    final MemoryBudget budget = new MemoryBudget();
+    final Http1Engine engine;
+    final Http2Engine engine2;
+    final AsyncEngine loops;
+
+    private final AtomicReference<Config> config;
+    private final AtomicLong calls = new AtomicLong(0), failures = new AtomicLong(0);
+
+    public FairClient() {
+        this(new ConnectionPool());
+    }
+
+    public FairClient(final ConnectionPool pool) {
+        engine = new Http1Engine(pool == null ? new ConnectionPool() : pool);
+        engine2 = new Http2Engine(engine, new Http2Settings());
+        loops = new AsyncEngine(engine, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2))).budget(budget);
+        config = new AtomicReference<>(new Config(this));
+    }
+
+    public FairCall url(final String url) {
+        return call(point(url));
+    }
+
+    public FairCall url(final URL url) {
+        return call(point(url));
+    }
+
+    public FairCall url(final URI uri) {
+        return call(point(uri));
+    }
+
+    private FairCall call(final Point point) {
+        return point == null ? null : new FairCall(new FairBase(this, point));
+    }
+
+    /**
+     * Current snapshot, later changes to the client do not touch it
+     */
+    Config config() {
+        return config.get();
+    }
+
+    private FairClient change(final UnaryOperator<Config> change) {
+        config.updateAndGet(change);
+
+        return this;
+    }
+
+    public String header(final String name) {
+        return name == null ? null : config.get().headers.get(name);
+    }
+
+    /**
+     * Sent with every call of this client, empty value removes the header
+     */
+    public FairClient header(final String name, final String value) {
+        if (isEmpty(name))
+            return this;
+
+        return change(c -> {
+            final HeaderMap headers = c.headers.copy();
+
+            if (isEmpty(value))
+                headers.remove(name);
+            else
+                headers.put(name, value);
+
+            return c.with(b -> b.headers = headers.freeze());
+        });
+    }
+
+    public FairClient proxy(final Proxy proxy) {
+        return change(c -> c.with(b -> b.proxy = proxy == null ? Proxy.NO_PROXY : proxy));
+    }
+
+    /**
+     * null resets to the client's own async engine
+     */
+    public FairClient transport(final Transport transport) {
+        return change(c -> c.with(b -> b.transport = transport == null ? loops : transport));
+    }
+
+    /**
+     * Executor for FairFuture calls, null resets to the default: common pool, or virtual thread per task on Java 21+
+     */
+    public FairClient executor(final Executor executor) {
+        return change(c -> c.with(b -> b.executor = executor == null ? Threads.executor() : executor));
+    }
+
+    public FairClient errorHandler(final FairErrorHandler handler) {
+        return handler == null ? this : change(c -> c.with(b -> b.handler = handler));
+    }
+
+    /**
+     * Response bodies longer than this abort the call instead of being buffered, 0 is no limit
+     */
+    public FairClient maxBodySize(final long bytes) {
+        return change(c -> c.with(b -> b.maxBody = Math.max(0, bytes)));
+    }
+
+    /**
+     * Buffered response bodies past this size go to a temporary memory-mapped file instead of the heap, 0 never spills
+     */
+    public FairClient spillThreshold(final long bytes) {
+        return change(c -> c.with(b -> b.spillAt = Math.max(0, bytes)));
+    }
+
+    /**
+     * Asks for gzip / deflate replies and decodes them on the fly, off by default
+     */
+    public FairClient decompression(final boolean state) {
+        return change(c -> c.with(b -> b.decompress = state));
+    }
+
+    /**
+     * Json codec for request payloads and FairResponse.asJson / fromJson, null resets to the default mapper
+     */
+    public FairClient mapper(final ObjectMapper mapper) {
+        return change(c -> c.with(b -> b.mapper = mapper == null ? Config.mapper() : mapper));
+    }
+
+    public FairClient eachCallTraceConsumer(final Consumer<String> traceConsumer) {
+        return change(c -> c.with(b -> b.tracer = traceConsumer));
+    }
+
+    public FairClient replyVerificator(final Consumer<FairResponse> verificator) {
+        return change(c -> c.with(b -> b.verificator = verificator));
+    }
+
+    public ConnectionPool connectionPool() {
+        return engine.pool();
+    }
+
+    /**
+     * In-flight byte budget of this client, unlimited until {@code memoryBudget().limit(bytes)}; used() is the current usage
+     */
+    public MemoryBudget memoryBudget() {
+        return budget;
+    }
+
+    public CookieKeeper cookieKeeper() {
+        return keeper;
+    }
+
+    public Transport nativeTransport() {
+        return engine;
+    }
+
+    /**
+     * Multiplexed h2 engine sharing the native http/1.1 pool as fallback, tune it via {@code http2Transport().settings()}
+     */
+    public Http2Engine http2Transport() {
+        return engine2;
+    }
+
+    /**
+     * Default engine: blocking calls go to the native http/1.1 engine, FairFuture calls are driven by selector threads
+     */
+    public AsyncEngine asyncTransport() {
+        return loops;
+    }
+
+    /**
+     * @return calls finished by this client, websocket handshakes included
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return finished calls which were broken by an exception
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    void finished(final CallData data) {
+        calls.incrementAndGet();
+
+        if (data.brokenBy != null)
+            failures.incrementAndGet();
+    }
+
+    /**
+     * Closes pooled connections and stops the selector threads, the client is not meant to be used afterwards
+     */
+    @Override
+    public void close() {
+        loops.shutdown();
+        engine2.shutdown();
+        engine.pool().shutdown();
+    }
+
+    private static Point point(final String url) {
+        try {
+            return point(new URL(url));
+        } catch (final Exception ignore) {
+        }
+
+        return null;
+    }
+
+    private static Point point(final URL url) {
+        try {
+            return new Point(
+                    Schemas.valueOf(url.getProtocol().toLowerCase().trim()),
+                    url.getHost(),
+                    url.getPort(),
+                    url.getPath(),
+                    url.getQuery()
+            );
+        } catch (final Exception ignore) {
+        }
+
+        return null;
+    }
+
+    private static Point point(final URI uri) {
+        try {
+            return new Point(
+                    Schemas.valueOf(uri.getScheme().toLowerCase().trim()),
+                    uri.getHost(),
+                    uri.getPort(),
+                    uri.getPath(),
+                    uri.getQuery()
+            );
+        } catch (final Exception ignore) {
+        }
+        return null;
+    }
+
+    /**
+     * Never changed once published, every setter of the client builds a new one
+     */
+    static final class Config {
+        final HeaderMap headers;
+        final Proxy proxy;
+        final Transport transport;
+        final Executor executor;
+        final FairErrorHandler handler;
+        final ObjectMapper mapper;
+        final Consumer<String> tracer;
+        final Consumer<FairResponse> verificator;
+        final long maxBody, spillAt;
+        final boolean decompress;
+
+        private Config(final FairClient client) {
+            this(new Draft(client));
+        }
+
+        private Config(final Draft d) {
+            headers = d.headers;
+            proxy = d.proxy;
+            transport = d.transport;
+            executor = d.executor;
+            handler = d.handler;
+            mapper = d.mapper;
+            tracer = d.tracer;
+            verificator = d.verificator;
+            maxBody = d.maxBody;
+            spillAt = d.spillAt;
+            decompress = d.decompress;
+        }
+
+        private Config with(final Consumer<Draft> change) {
+            final Draft d = new Draft(this);
+            change.accept(d);
+
+            return new Config(d);
+        }
+
+        private static ObjectMapper mapper() {
+            return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        }
+
+        private static final class Draft {
+            HeaderMap headers;
+            Proxy proxy;
+            Transport transport;
+            Executor executor;
+            FairErrorHandler handler;
+            ObjectMapper mapper;
+            Consumer<String> tracer;
+            Consumer<FairResponse> verificator;
+            long maxBody, spillAt;
+            boolean decompress;
+
+            Draft(final FairClient client) {
+                headers = HeaderMap.EMPTY;
+                proxy = Proxy.NO_PROXY;
+                transport = client.loops;
+                executor = Threads.executor();
+                handler = defaultHandler;
+                mapper = mapper();
+            }
+
+            Draft(final Config c) {
+                headers = c.headers;
+                proxy = c.proxy;
+                transport = c.transport;
+                executor = c.executor;
+                handler = c.handler;
+                mapper = c.mapper;
+                tracer = c.tracer;
+                verificator = c.verificator;
+                maxBody = c.maxBody;
+                spillAt = c.spillAt;
+                decompress = c.decompress;
+            }
+        }
+    }
+}
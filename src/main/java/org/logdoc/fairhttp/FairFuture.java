@@ -8,13 +8,19 @@ import org.logdoc.fairhttp.helpers.SocketConsumer;
 import org.logdoc.fairhttp.structs.traits.Methods;
 import org.logdoc.fairhttp.structs.websocket.extension.IExtension;
 import org.logdoc.fairhttp.structs.websocket.protocol.IProtocol;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.Transport;
 import org.logdoc.helpers.std.MimeType;
 
+import java.io.InputStream;
 import java.net.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -28,7 +34,7 @@ public class FairFuture extends Payloads implements FutureSugar {
     private final FairBase base;
 
     FairFuture(final Point destination) {
-        base = new FairBase(destination);
+        base = new FairBase(Fair.client, destination);
     }
 
     FairFuture(final FairBase base) {
@@ -57,6 +63,15 @@ public class FairFuture extends Payloads implements FutureSugar {
         return this;
     }
 
+    /**
+     * Whole body in one reusable buffer per read, valid only inside the callback; an empty buffer marks the end
+     */
+    public FairFuture withBufferReader(final Consumer<ByteBuffer> bufferReader) {
+        base.bufferReader = bufferReader;
+
+        return this;
+    }
+
     public FairFuture errorHandler(final FairErrorHandler errorHandler) {
         base.errorHandler(errorHandler);
 
@@ -81,6 +96,15 @@ public class FairFuture extends Payloads implements FutureSugar {
         return this;
     }
 
+    /**
+     * Body taken from the publisher as the socket drains, length is exact or -1 (sent chunked)
+     */
+    public FairFuture withPublisher(final Flow.Publisher<ByteBuffer> publisher, final long length) {
+        publisher(publisher, length);
+
+        return this;
+    }
+
     public FairFuture withtOption(final Fair.Option option, final boolean state) {
         base.option(option, state);
 
@@ -93,12 +117,93 @@ public class FairFuture extends Payloads implements FutureSugar {
         return this;
     }
 
+    /**
+     * Reply body is left on the wire as FairResponse.stream, the response must be closed
+     */
+    public FairFuture streamReply(final boolean state) {
+        base.streamReply = state;
+
+        return this;
+    }
+
+    /**
+     * Reply comes back after the headers, the body as FairResponse.publisher; the socket is read only on subscriber demand
+     */
+    public FairFuture publishReply(final boolean state) {
+        base.publishReply = state;
+
+        return this;
+    }
+
+    /**
+     * Request bodies from threshold bytes up, and all of unknown length, go out compressed: gzip or deflate, null turns it off
+     */
+    public FairFuture compressRequest(final String encoding, final long threshold) {
+        base.compression(encoding, threshold, null);
+
+        return this;
+    }
+
+    /**
+     * Deflate with a preset dictionary, for repeated payload shapes; the receiver has to inflate with the same dictionary
+     */
+    public FairFuture compressRequest(final byte[] dictionary, final long threshold) {
+        base.compression("deflate", threshold, dictionary);
+
+        return this;
+    }
+
+    /**
+     * Sends Accept-Encoding: gzip, deflate and inflates the reply while it is read
+     */
+    public FairFuture decompress(final boolean state) {
+        base.decompress = state;
+
+        return this;
+    }
+
     public FairFuture multipart(final String filename, final String partName, final MimeType partContentType, final byte[] partBody) {
         base.multipart(filename, partName, partContentType, partBody);
 
         return this;
     }
 
+    /**
+     * File part is streamed from disk when the request is sent
+     */
+    public FairFuture multipart(final String filename, final String partName, final MimeType partContentType, final Path partBody) {
+        base.multipart(filename, partName, partContentType, partBody);
+
+        return this;
+    }
+
+    /**
+     * Stream part has no known length, the whole request goes chunked
+     */
+    public FairFuture multipart(final String filename, final String partName, final MimeType partContentType, final InputStream partBody) {
+        base.multipart(filename, partName, partContentType, BodySource.of(partBody));
+
+        return this;
+    }
+
+    /**
+     * Longer replies abort the call instead of being buffered, 0 is no limit
+     */
+    public FairFuture maxBodySize(final long bytes) {
+        base.maxBody = Math.max(0, bytes);
+
+        return this;
+    }
+
+    /**
+     * Buffered replies past this size are kept in a temporary memory-mapped file (FairResponse.spilled), 0 never spills
+     */
+    public FairFuture spillThreshold(final long bytes) {
+        base.spillAt = Math.max(0, bytes);
+
+        return this;
+    }
+
     public FairFuture timeout(final int timeoutMs) {
         base.timeout(timeoutMs);
 
@@ -111,6 +216,12 @@ public class FairFuture extends Payloads implements FutureSugar {
         return this;
     }
 
+    public FairFuture transport(final Transport transport) {
+        base.transport(transport);
+
+        return this;
+    }
+
     public FairFuture proxy(final Proxy proxy) {
         base.proxy(proxy);
 
@@ -135,6 +246,37 @@ public class FairFuture extends Payloads implements FutureSugar {
         return httpCall(Methods.PATCH);
     }
 
+    /**
+     * GET straight into the file, a dropped connection is resumed where it stopped
+     */
+    public CompletionStage<FairResponse> download(final Path target) {
+        return download(target, false);
+    }
+
+    /**
+     * @param resume continue a partial file left by an earlier call instead of overwriting it
+     */
+    public CompletionStage<FairResponse> download(final Path target, final boolean resume) {
+        base.method = Methods.GET;
+
+        if (base.executor != null)
+            return CompletableFuture.supplyAsync(() -> base.download(target, resume), base.executor);
+
+        return CompletableFuture.supplyAsync(() -> base.download(target, resume));
+    }
+
+    /**
+     * Large file over several connections at once, each fetching its own byte range
+     */
+    public CompletionStage<FairResponse> download(final Path target, final int segments) {
+        base.method = Methods.GET;
+
+        if (base.executor != null)
+            return CompletableFuture.supplyAsync(() -> base.download(target, segments), base.executor);
+
+        return CompletableFuture.supplyAsync(() -> base.download(target, segments));
+    }
+
     @Override
     public CompletionStage<FairSocket> websocket(final SocketConsumer consumer, Collection<IExtension> extensions, Collection<IProtocol> protocols) {
         if (base.executor != null)
@@ -147,16 +289,17 @@ public class FairFuture extends Payloads implements FutureSugar {
     CompletionStage<FairResponse> httpCall(final Methods method) {
         base.method = method;
 
-        if (base.executor != null)
-            return CompletableFuture.supplyAsync(base::httpCall, base.executor);
-
-        return CompletableFuture.supplyAsync(base::httpCall);
+        return base.httpCallFuture();
     }
 
     void payload(final byte[] bytes) {
         base.payload = bytes;
     }
 
+    void payload(final BodySource body) {
+        base.source = body;
+    }
+
     FairFuture payloadAppend(final byte[] append) {
         base.payloadAppend(append);
 
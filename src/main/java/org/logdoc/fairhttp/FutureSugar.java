@@ -15,6 +15,7 @@ import org.logdoc.helpers.std.MimeTypes;
 import org.w3c.dom.Document;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -22,6 +23,7 @@ import java.nio.file.Path;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.Flow;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
@@ -62,7 +64,7 @@ public interface FutureSugar {
         header(Headers.ContentType, Multiform);
 
         if (!isEmpty(fieldName) && file != null && Files.exists(file)) try {
-            return multipart(file.getFileName().toString(), fieldName, BINARY, Files.readAllBytes(file));
+            return multipart(file.getFileName().toString(), fieldName, BINARY, file);
         } catch (final Exception ignore) {
         }
 
@@ -99,7 +101,7 @@ public interface FutureSugar {
     }
 
     default CompletionStage<FairResponse> patch(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return patch();
     }
 
@@ -108,6 +110,11 @@ public interface FutureSugar {
         return patch();
     }
 
+    default CompletionStage<FairResponse> patch(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return patch();
+    }
+
     default CompletionStage<FairResponse> patch(final JsonNode json) {
         ((Payloads) this).json(json);
         return patch();
@@ -134,7 +141,7 @@ public interface FutureSugar {
     }
 
     default CompletionStage<FairResponse> post(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return post();
     }
 
@@ -143,6 +150,11 @@ public interface FutureSugar {
         return post();
     }
 
+    default CompletionStage<FairResponse> post(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return post();
+    }
+
     default CompletionStage<FairResponse> post(final JsonNode json) {
         ((Payloads) this).json(json);
         return post();
@@ -169,7 +181,7 @@ public interface FutureSugar {
     }
 
     default CompletionStage<FairResponse> put(final Path file) {
-        ((Payloads) this).fileBytes(file);
+        ((Payloads) this).file(file);
         return put();
     }
 
@@ -178,6 +190,11 @@ public interface FutureSugar {
         return put();
     }
 
+    default CompletionStage<FairResponse> put(final Flow.Publisher<ByteBuffer> publisher) {
+        ((Payloads) this).publisher(publisher, -1);
+        return put();
+    }
+
     default CompletionStage<FairResponse> put(final JsonNode json) {
         ((Payloads) this).json(json);
         return put();
@@ -241,4 +258,8 @@ public interface FutureSugar {
     FairFuture withChunksWriter(Supplier<byte[]> chunks);
 
     FairFuture multipart(String filename, String partName, MimeType partContentType, byte[] partBody);
+
+    FairFuture multipart(String filename, String partName, MimeType partContentType, Path partBody);
+
+    FairFuture multipart(String filename, String partName, MimeType partContentType, InputStream partBody);
 }
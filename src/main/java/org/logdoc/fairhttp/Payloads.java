@@ -1,17 +1,19 @@
 package org.logdoc.fairhttp;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.logdoc.fairhttp.helpers.PooledBytes;
 import org.logdoc.fairhttp.structs.traits.ContentTypes;
 import org.logdoc.fairhttp.structs.traits.Headers;
+import org.logdoc.fairhttp.transport.BodySource;
 import org.w3c.dom.Document;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.Flow;
 
-import static org.logdoc.helpers.Bytes.copy;
 import static org.logdoc.helpers.Xmls.xml2StringBytes;
 import static org.logdoc.helpers.std.MimeTypes.Signs.*;
 
@@ -44,9 +46,8 @@ abstract class Payloads {
         header(Headers.ContentType, Bin);
 
         if (stream != null)
-            try (final ByteArrayOutputStream os = new ByteArrayOutputStream(1024 * 16)) {
-                copy(stream, os);
-                os.flush();
+            try (final PooledBytes os = new PooledBytes()) {
+                while (os.readFrom(stream) != -1) ;
 
                 this.payload(os.toByteArray());
             } catch (final Exception ignore) {
@@ -59,16 +60,23 @@ abstract class Payloads {
         if (data != null) this.payload(data);
     }
 
-    void fileBytes(final Path file) {
+    void file(final Path file) {
         header(Headers.ContentType, Bin);
 
         if (file != null && Files.exists(file))
             try {
-                this.payload(Files.readAllBytes(file));
+                this.payload(BodySource.file(file));
             } catch (final Exception ignore) {
             }
     }
 
+    void publisher(final Flow.Publisher<ByteBuffer> publisher, final long length) {
+        header(Headers.ContentType, Bin);
+
+        if (publisher != null) this.payload(BodySource.publisher(publisher, length));
+    }
+
     abstract Payloads header(String name, String value);
     abstract void payload(byte[] bytes);
+    abstract void payload(BodySource body);
 }
@@ -0,0 +1,116 @@
+package org.logdoc.fairhttp;
+
+import org.logdoc.fairhttp.flow.FairResponse;
+import org.logdoc.fairhttp.structs.Point;
+import org.logdoc.fairhttp.structs.traits.Methods;
+import org.logdoc.fairhttp.transport.BodySource;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 24.10.2026 15:05
+ * fairhttp ☭ sweat and blood
+ *
+ * Call template for a hot endpoint: method, headers, options and the client snapshot are fixed by FairCall.prepare(),
+ * header lines are encoded once. An invocation only fills path params ({name} segments), appends a query and takes a body.
+ * Immutable, one instance serves any number of threads.
+ */
+public final class PreparedCall {
+    private final FairBase template;
+    private final String[] literals, params;
+
+    PreparedCall(final FairBase base, final Methods method) {
+        if (method == null) throw new IllegalArgumentException("Method is not defined");
+
+        template = base.template(method);
+
+        final List<String> literals = new ArrayList<>(4), params = new ArrayList<>(4);
+        final String path = template.destination.path == null ? "" : template.destination.path;
+        int from = 0, open;
+
+        while ((open = path.indexOf('{', from)) != -1) {
+            final int close = path.indexOf('}', open);
+
+            if (close == -1)
+                throw new IllegalArgumentException("Unclosed path parameter in " + path);
+
+            literals.add(path.substring(from, open));
+            params.add(path.substring(open + 1, close));
+            from = close + 1;
+        }
+
+        literals.add(path.substring(from));
+
+        this.literals = literals.toArray(new String[0]);
+        this.params = params.toArray(new String[0]);
+    }
+
+    public FairResponse call() {
+        return call(Collections.emptyMap(), null, BodySource.EMPTY);
+    }
+
+    public FairResponse call(final byte[] body) {
+        return call(Collections.emptyMap(), null, body);
+    }
+
+    /**
+     * @param params values for the {name} path segments, url-encoded here
+     * @param query  already encoded, appended to the template's own query; null for none
+     */
+    public FairResponse call(final Map<String, String> params, final String query, final byte[] body) {
+        return invocation(params, query, BodySource.of(body)).httpCall();
+    }
+
+    public FairResponse call(final Map<String, String> params, final String query, final BodySource body) {
+        return invocation(params, query, body).httpCall();
+    }
+
+    public CompletionStage<FairResponse> callAsync(final byte[] body) {
+        return callAsync(Collections.emptyMap(), null, body);
+    }
+
+    public CompletionStage<FairResponse> callAsync(final Map<String, String> params, final String query, final byte[] body) {
+        return invocation(params, query, BodySource.of(body)).httpCallFuture();
+    }
+
+    public CompletionStage<FairResponse> callAsync(final Map<String, String> params, final String query, final BodySource body) {
+        return invocation(params, query, body).httpCallFuture();
+    }
+
+    private FairBase invocation(final Map<String, String> values, final String query, final BodySource body) {
+        final FairBase base = new FairBase(template, point(values, query));
+        base.source = body == null ? BodySource.EMPTY : body;
+
+        return base;
+    }
+
+    private Point point(final Map<String, String> values, final String query) {
+        final Point t = template.destination;
+        final String q = isEmpty(query) ? t.query : isEmpty(t.query) ? query : t.query + "&" + query;
+
+        if (params.length == 0)
+            return q == t.query ? t : new Point(t.schema, t.host, t.port, t.path, q);
+
+        final StringBuilder path = new StringBuilder(t.path.length() + 32).append(literals[0]);
+
+        for (int i = 0; i < params.length; i++) {
+            final String value = values == null ? null : values.get(params[i]);
+
+            if (value == null)
+                throw new IllegalArgumentException("No value for path parameter '" + params[i] + "'");
+
+            path.append(URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20")).append(literals[i + 1]);
+        }
+
+        return new Point(t.schema, t.host, t.port, path.toString(), q);
+    }
+}
@@ -1,6 +1,7 @@
 package org.logdoc.fairhttp.diag;
 
-import java.util.HashMap;
+import org.logdoc.fairhttp.structs.HeaderMap;
+
 import java.util.Map;
 
 /**
@@ -20,10 +21,11 @@ public class CDBuilder {
 
     private int timeout, resCode;
     private boolean followRedirects, allTrusted, skipHostVerify, skipReply, chunkedOutput;
-    private long reqWritten, writtenBytes, resStart, resDone, readBytes;
-    private String resMessage;
+    private long reqWritten, writtenBytes, resStart, resDone, readBytes, wireBytes = -1, handshake = -1;
+    private String resMessage, resEncoding;
     private byte[] resPayload;
     private Map<String, String> resHeaders;
+    private CallData.Download download;
     private Throwable brokenBy;
 
     private CDBuilder() {
@@ -39,7 +41,7 @@ public class CDBuilder {
 
     public static CDBuilder start(final String url, final String method, final Map<String, String> headers, final byte[] payload, final boolean chunkedInput) {
         final CDBuilder builder = start(url, method);
-        builder.headers = new HashMap<>(headers);
+        builder.headers = snapshot(headers);
         builder.payload = payload;
         builder.chunkedInput = chunkedInput;
 
@@ -62,7 +64,9 @@ public class CDBuilder {
         data = new CallData(
                 reqStart, reqWritten, resStart, resDone,
                 new CallData.Request(method, url, headers, payload, timeout, chunkedInput, writtenBytes, followRedirects, allTrusted, skipHostVerify, skipReply),
-                resCode > 0 ? new CallData.Response(resCode, resMessage, resHeaders, resPayload, chunkedOutput, readBytes) : CallData.Response.NOT_HAPPEN(),
+                resCode > 0 ? new CallData.Response(resCode, resMessage, resHeaders, resPayload, chunkedOutput, readBytes, wireBytes < 0 ? readBytes : wireBytes, resEncoding) : CallData.Response.NOT_HAPPEN(),
+                download,
+                handshake,
                 brokenBy
         );
     }
@@ -78,12 +82,25 @@ public class CDBuilder {
     }
 
     public CDBuilder written(final long written) {
-        reqWritten = System.currentTimeMillis();
+        return written(written, System.currentTimeMillis());
+    }
+
+    public CDBuilder written(final long written, final long at) {
+        reqWritten = at;
         writtenBytes = written;
 
         return this;
     }
 
+    /**
+     * @param ms TLS handshake time, negative for none
+     */
+    public CDBuilder handshake(final long ms) {
+        handshake = ms < 0 ? -1 : ms;
+
+        return this;
+    }
+
     public CDBuilder responseStarted(final int code, final String message) {
         resStart = System.currentTimeMillis();
         resCode = code;
@@ -96,14 +113,34 @@ public class CDBuilder {
         resDone = System.currentTimeMillis();
         this.readBytes = readBytes;
         this.resPayload = resPayload;
-        this.resHeaders = new HashMap<>(resHeaders);
+        this.resHeaders = snapshot(resHeaders);
         this.chunkedOutput = chunkedOutput;
 
         return this;
     }
 
+    public CDBuilder decoded(final String encoding, final long wireBytes) {
+        resEncoding = encoding;
+        this.wireBytes = wireBytes;
+
+        return this;
+    }
+
     public CDBuilder headers(final Map<String, String> headers) {
-        this.headers = new HashMap<>(headers);
+        this.headers = snapshot(headers);
+
+        return this;
+    }
+
+    /**
+     * Frozen headers are shared as they are, the rest copied with every field kept
+     */
+    private static HeaderMap snapshot(final Map<String, String> headers) {
+        return headers instanceof HeaderMap && ((HeaderMap) headers).frozen() ? (HeaderMap) headers : new HeaderMap(headers);
+    }
+
+    public CDBuilder download(final String target, final long offset, final long received, final long total, final long elapsed, final int resumes) {
+        download = new CallData.Download(target, offset, received, total, elapsed, resumes);
 
         return this;
     }
@@ -1,5 +1,7 @@
 package org.logdoc.fairhttp.diag;
 
+import org.logdoc.fairhttp.structs.HeaderMap;
+
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
@@ -8,6 +10,7 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,27 +26,43 @@ public class CallData {
 
     public final long id = System.nanoTime();
     public final long requestStarted, requestWritten, responseStarted, responseRead, finita;
+    /**
+     * TLS handshake ms of the connection opened for this call, -1 if none was made or the transport cant tell
+     */
+    public final long handshake;
     public final Request request;
     public final Response response;
+    public final Download download;
     public final Throwable brokenBy;
 
     public CallData(final long requestStarted, final long requestWritten, final long responseStarted, final long responseRead, final Request request, final Response response, final Throwable brokenBy) {
+        this(requestStarted, requestWritten, responseStarted, responseRead, request, response, null, brokenBy);
+    }
+
+    public CallData(final long requestStarted, final long requestWritten, final long responseStarted, final long responseRead, final Request request, final Response response, final Download download, final Throwable brokenBy) {
+        this(requestStarted, requestWritten, responseStarted, responseRead, request, response, download, -1, brokenBy);
+    }
+
+    public CallData(final long requestStarted, final long requestWritten, final long responseStarted, final long responseRead, final Request request, final Response response, final Download download, final long handshake, final Throwable brokenBy) {
         this.requestStarted = requestStarted;
         this.requestWritten = requestWritten;
         this.responseStarted = responseStarted;
         this.responseRead = responseRead;
         this.request = request;
         this.response = response;
+        this.download = download;
+        this.handshake = handshake;
         this.brokenBy = brokenBy;
         this.finita = System.currentTimeMillis();
     }
 
     public String trace() {
         return "*** TRACE " + id + " (" + (finita - requestStarted) + "ms complete call) ***"
-                + "\n===>\nREQUEST @ " + LocalDateTime.from(Instant.ofEpochMilli(requestStarted).atZone(ZoneId.systemDefault())) + " - " + LocalDateTime.from(Instant.ofEpochMilli(requestWritten).atZone(ZoneId.systemDefault())) + " :"
+                + "\n===>\nREQUEST @ " + LocalDateTime.from(Instant.ofEpochMilli(requestStarted).atZone(ZoneId.systemDefault())) + " - " + LocalDateTime.from(Instant.ofEpochMilli(requestWritten).atZone(ZoneId.systemDefault())) + (handshake < 0 ? "" : " (TLS handshake " + handshake + "ms)") + " :"
                 + "\n" + request.trace()
                 + "\n===>\nRESPONSE @ " + LocalDateTime.from(Instant.ofEpochMilli(responseStarted).atZone(ZoneId.systemDefault())) + " - " + LocalDateTime.from(Instant.ofEpochMilli(responseRead).atZone(ZoneId.systemDefault())) + " :"
                 + "\n" + response.trace()
+                + (download == null ? "" : "\n===>\nDOWNLOAD :\n" + download.trace())
                 + "\n";
     }
 
@@ -105,7 +124,7 @@ public class CallData {
 
             if (timeout > 0) b.append("> Timeout | ").append(timeout).append(" ms\n");
 
-            headers.forEach((k, v) -> b.append("> Header | '").append(k).append("' = '").append(quote(v)).append('\'').append('\n'));
+            fields(headers, (k, v) -> b.append("> Header | '").append(k).append("' = '").append(quote(v)).append('\'').append('\n'));
 
             if (payload != null)
                 b.append("> Payload ").append(chunked ? "[chunked] " : "").append("(").append(written).append(" bytes) | '").append(quote(new String(payload, StandardCharsets.UTF_8))).append("'\n");
@@ -119,7 +138,7 @@ public class CallData {
             if (timeout > 0)
                 c.append("--connect-timeout ").append(Duration.ofMillis(timeout).get(ChronoUnit.SECONDS)).append(' ');
 
-            headers.forEach((k, v) -> c.append("-H '").append(k).append(": ").append(quote(v)).append('\'').append(' '));
+            fields(headers, (k, v) -> c.append("-H '").append(k).append(": ").append(quote(v)).append('\'').append(' '));
 
             if (payload != null)
                 c.append(" -d '").append(quote(new String(payload, StandardCharsets.UTF_8))).append('\'');
@@ -135,14 +154,25 @@ public class CallData {
         public final byte[] payload;
         public final boolean chunked;
         public final long read;
+        /**
+         * Bytes taken off the wire, differs from read only for a decoded body
+         */
+        public final long wire;
+        public final String encoding;
 
         public Response(final int code, final String message, final Map<String, String> headers, final byte[] payload, final boolean chunked, final long read) {
+            this(code, message, headers, payload, chunked, read, read, null);
+        }
+
+        public Response(final int code, final String message, final Map<String, String> headers, final byte[] payload, final boolean chunked, final long read, final long wire, final String encoding) {
             this.code = code;
             this.message = message;
             this.headers = headers;
             this.payload = payload;
             this.chunked = chunked;
             this.read = read;
+            this.wire = wire;
+            this.encoding = encoding;
         }
 
         public String trace() {
@@ -154,10 +184,10 @@ public class CallData {
             b.append('\n');
 
             if (!isEmpty(headers))
-                headers.forEach((k, v) -> b.append("< Header | '").append(k).append("' = '").append(v).append('\'').append('\n'));
+                fields(headers, (k, v) -> b.append("< Header | '").append(k).append("' = '").append(v).append('\'').append('\n'));
 
             if (!isEmpty(payload))
-                b.append("< Data ").append(chunked ? "[chunked] " : "").append("(").append(read).append(" bytes) | '").append(new String(payload, StandardCharsets.UTF_8)).append('\'');
+                b.append("< Data ").append(chunked ? "[chunked] " : "").append("(").append(read).append(" bytes").append(encoding == null ? "" : ", " + wire + " " + encoding).append(") | '").append(new String(payload, StandardCharsets.UTF_8)).append('\'');
 
             return b.toString();
         }
@@ -167,6 +197,38 @@ public class CallData {
         }
     }
 
+    public static class Download {
+        public final String target;
+        public final long offset, received, total, elapsed;
+        public final int resumes;
+
+        public Download(final String target, final long offset, final long received, final long total, final long elapsed, final int resumes) {
+            this.target = target;
+            this.offset = offset;
+            this.received = received;
+            this.total = total;
+            this.elapsed = elapsed;
+            this.resumes = resumes;
+        }
+
+        /**
+         * @return -1 if the server did not tell the size
+         */
+        public long remaining() {
+            return total < 0 ? -1 : Math.max(0, total - offset - received);
+        }
+
+        public long bytesPerSec() {
+            return received * 1000 / Math.max(1, elapsed);
+        }
+
+        public String trace() {
+            return "< Target | " + target + "\n"
+                    + "< Received | " + received + " bytes" + (offset > 0 ? " from offset " + offset : "") + (total >= 0 ? " of " + total + ", " + remaining() + " remaining" : "") + "\n"
+                    + "< Speed | " + bytesPerSec() + " bytes/sec in " + elapsed + " ms" + (resumes > 0 ? ", " + resumes + " resumes" : "");
+        }
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -180,6 +242,16 @@ public class CallData {
         return Objects.hash(id);
     }
 
+    /**
+     * Every field, repeats of a HeaderMap included
+     */
+    private static void fields(final Map<String, String> headers, final BiConsumer<String, String> action) {
+        if (headers instanceof HeaderMap)
+            ((HeaderMap) headers).forEachField(action);
+        else
+            headers.forEach(action);
+    }
+
     private static String quote(String unsafe) {
         return SINGLE_QUOTE_REPLACE.matcher(unsafe).replaceAll(Matcher.quoteReplacement("'\\''"));
     }
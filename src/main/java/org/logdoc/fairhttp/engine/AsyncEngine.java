@@ -0,0 +1,186 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+import org.logdoc.fairhttp.helpers.PooledBytes;
+import org.logdoc.fairhttp.helpers.Threads;
+import org.logdoc.fairhttp.transport.AsyncTransport;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.RequestHead;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 12:40
+ * fairhttp ☭ sweat and blood
+ *
+ * HTTP/1.1 on a few selector threads sharing the blocking engine's pool: thousands of calls in flight cost sockets, not threads.
+ * Proxied routes and streamed bodies are not driven by the loops, they run on the blocking engine in the fallback executor.
+ */
+public final class AsyncEngine implements AsyncTransport {
+    private final Http1Engine engine;
+    private final EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    private volatile Executor fallback = Threads.executor();
+    private volatile MemoryBudget budget = new MemoryBudget();
+
+    public AsyncEngine(final Http1Engine engine, final int loops) {
+        this.engine = engine;
+        this.loops = new EventLoop[Math.max(1, loops)];
+    }
+
+    public AsyncEngine fallbackExecutor(final Executor executor) {
+        this.fallback = executor == null ? Threads.executor() : executor;
+
+        return this;
+    }
+
+    /**
+     * Response bodies collected by the loops are reserved here, a starved exchange stops reading until bytes are released
+     */
+    public AsyncEngine budget(final MemoryBudget budget) {
+        this.budget = budget == null ? new MemoryBudget() : budget;
+
+        return this;
+    }
+
+    public Http1Engine engine() {
+        return engine;
+    }
+
+    public int loops() {
+        return loops.length;
+    }
+
+    @Override
+    public String name() {
+        return "async";
+    }
+
+    @Override
+    public TransportResponse exchange(final RequestHead head, final BodySource body) throws IOException {
+        return engine.exchange(head, body);
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> exchangeAsync(final RequestHead head, final BodySource body) {
+        return follow(head, body, 0);
+    }
+
+    private CompletableFuture<TransportResponse> follow(final RequestHead head, final BodySource body, final int hops) {
+        return exchange0(head, body).thenCompose(response -> {
+            final Http1Engine.Hop hop = Http1Engine.hop(head, body, response, hops);
+
+            if (hop == null)
+                return CompletableFuture.completedFuture(response);
+
+            return follow(hop.head, hop.body, hops + 1);
+        });
+    }
+
+    private CompletableFuture<TransportResponse> exchange0(final RequestHead head, final BodySource body) {
+        final Route route = new Route(head.destination, head.proxy, head.allTrusted, head.skipHostVerify);
+
+        if (!route.direct() || !(body instanceof BodySource.Bytes))
+            return CompletableFuture.supplyAsync(() -> buffered(head, body), fallback);
+
+        final CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+
+        try {
+            final byte[] payload = ((BodySource.Bytes) body).bytes;
+            final byte[] request = Http1Engine.head(route, head, payload.length);
+            final EventLoop loop = loop();
+
+            loop.execute(() -> {
+                try {
+                    new AsyncExchange(loop, engine.pool(), budget, route, head, request, payload, future).start();
+                } catch (final RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (final IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Body is collected under the same size limit and memory budget as on the loops, the reservation goes on with the response
+     */
+    private TransportResponse buffered(final RequestHead head, final BodySource body) {
+        long reserved = 0;
+
+        try (final Http1Response response = engine.exchange0(head, body); final InputStream is = response.body(); final PooledBytes collected = new PooledBytes()) {
+            final long known = response.head().contentLength;
+
+            if (head.maxBody > 0 && known > head.maxBody)
+                throw tooLarge(head.maxBody);
+
+            if (known > 0) {
+                budget.acquire(known);
+                reserved = known;
+            }
+
+            while (collected.readFrom(is) != -1) {
+                final long size = collected.size();
+
+                if (head.maxBody > 0 && size > head.maxBody)
+                    throw tooLarge(head.maxBody);
+
+                if (size > reserved) {
+                    final long more = Math.max(AsyncExchange.STEP, size - reserved);
+
+                    budget.acquire(more, reserved);
+                    reserved += more;
+                }
+            }
+
+            final BufferedResponse done = new BufferedResponse(response.head(), collected.toByteArray(), budget, reserved);
+            reserved = 0;
+
+            return done;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            budget.release(reserved);
+        }
+    }
+
+    private static ProtocolException tooLarge(final long limit) {
+        return new ProtocolException("Response body exceeds " + limit + " bytes");
+    }
+
+    /**
+     * Stops the selector threads, exchanges still on them fail with an IOException; a later call starts fresh loops
+     */
+    public void shutdown() {
+        synchronized (loops) {
+            for (int i = 0; i < loops.length; i++)
+                if (loops[i] != null) {
+                    loops[i].shutdown();
+                    loops[i] = null;
+                }
+        }
+    }
+
+    private EventLoop loop() throws IOException {
+        final int i = Math.floorMod(next.getAndIncrement(), loops.length);
+
+        if (loops[i] == null)
+            synchronized (loops) {
+                if (loops[i] == null)
+                    loops[i] = new EventLoop("fairhttp-loop-" + i);
+            }
+
+        return loops[i];
+    }
+}
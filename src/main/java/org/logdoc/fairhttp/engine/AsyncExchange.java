@@ -0,0 +1,411 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+import org.logdoc.fairhttp.helpers.PooledBytes;
+import org.logdoc.fairhttp.transport.RequestHead;
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 11:40
+ * fairhttp ☭ sweat and blood
+ *
+ * One HTTP/1.1 exchange driven by an event loop: lease, connect, handshake, write, read head, read body. Never blocks,
+ * every step returns to the loop when the socket has nothing to give. The response body is collected in memory.
+ */
+final class AsyncExchange implements EventLoop.Handler {
+    private static final int LEASE = 0, CONNECT = 1, WRITE = 2, HEAD = 3, BODY = 4, DONE = 5;
+    static final long STEP = 1024 * 64;
+
+    private final EventLoop loop;
+    private final ConnectionPool pool;
+    private final MemoryBudget budget;
+    private final Route route;
+    private final RequestHead request;
+    private final byte[] head, body;
+    private final CompletableFuture<TransportResponse> future;
+    private final long leaseDeadline;
+
+    private Connection connection;
+    private SelectionKey key;
+    private ByteBuffer out;
+    private ResponseHead response;
+    private ChunkedDecoder chunks;
+    private PooledBytes collected;
+    private byte[] fixed;
+    private int phase = LEASE, filled, attempt;
+    private long deadline, remaining, reserved, starvedSince;
+    private boolean reused, reusable, untilEof, starved;
+
+    AsyncExchange(final EventLoop loop, final ConnectionPool pool, final MemoryBudget budget, final Route route, final RequestHead request, final byte[] head, final byte[] body, final CompletableFuture<TransportResponse> future) {
+        this.loop = loop;
+        this.pool = pool;
+        this.budget = budget;
+        this.route = route;
+        this.request = request;
+        this.head = head;
+        this.body = body;
+        this.future = future;
+
+        leaseDeadline = pool.acquireTimeout() > 0 ? System.currentTimeMillis() + pool.acquireTimeout() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Loop thread only
+     */
+    void start() {
+        loop.track(this);
+        lease();
+    }
+
+    @Override
+    public void ready(final SelectionKey key) {
+        try {
+            progress();
+            advance();
+        } catch (final IOException | RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    @Override
+    public void tick(final long now) {
+        if (starved) {
+            try {
+                if (funded(connection.buffered())) {
+                    starved = false;
+                    progress();
+                    advance();
+                } else if (budget.maxWait() > 0 && now - starvedSince >= budget.maxWait())
+                    failed(budget.rejected(STEP));
+            } catch (final IOException | RuntimeException e) {
+                failed(e);
+            }
+        } else if (phase == LEASE) {
+            if (now >= leaseDeadline)
+                fail(new ConnectException("No free connection to " + route + " within " + pool.acquireTimeout() + " ms, " + pool.leased(route) + " leased"));
+            else
+                lease();
+        } else if (now >= deadline)
+            failed(new SocketTimeoutException((phase == CONNECT ? "Connect" : phase == WRITE ? "Write" : "Read") + " timed out after " + request.timeout + " ms: " + route));
+    }
+
+    @Override
+    public void abort(final Throwable failure) {
+        if (phase == DONE)
+            return;
+
+        if (connection != null) {
+            detach();
+            pool.release(connection, false);
+            connection = null;
+        }
+
+        fail(failure);
+    }
+
+    private void lease() {
+        if (!pool.tryLease(route))
+            return;
+
+        try {
+            connection = pool.pollIdle(route);
+            reused = connection != null;
+
+            if (connection == null)
+                connection = Connection.begin(route);
+        } catch (final IOException | RuntimeException e) {
+            pool.unlease(route);
+            fail(e);
+            return;
+        }
+
+        phase = reused ? WRITE : CONNECT;
+        out = ByteBuffer.wrap(head);
+        progress();
+
+        try {
+            advance();
+        } catch (final IOException | RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    /**
+     * Runs the state machine as far as the socket allows, then waits for the matching readiness
+     */
+    private void advance() throws IOException {
+        while (true)
+            switch (phase) {
+                case CONNECT:
+                    if (!connection.connectNow()) {
+                        await(connection.channel().isConnectionPending() ? SelectionKey.OP_CONNECT : connection.interestOps(SelectionKey.OP_READ));
+                        return;
+                    }
+
+                    phase = WRITE;
+                    break;
+                case WRITE:
+                    if (!connection.writeNow(out)) {
+                        await(connection.interestOps(SelectionKey.OP_WRITE));
+                        return;
+                    }
+
+                    if (out.array() == head && body.length > 0) {
+                        out = ByteBuffer.wrap(body);
+                        break;
+                    }
+
+                    connection.parser().reset();
+                    phase = HEAD;
+                    break;
+                case HEAD:
+                case BODY:
+                    final ByteBuffer in = connection.buffered();
+
+                    if (phase == HEAD && parseHead(in))
+                        break;
+
+                    if (phase == BODY) {
+                        if (!funded(in)) {
+                            starve();
+                            return;
+                        }
+
+                        consumeBody(in);
+                    }
+
+                    if (phase == DONE)
+                        return;
+
+                    final int n = connection.readNow();
+
+                    if (n > 0) {
+                        progress();
+                        break;
+                    }
+
+                    if (n < 0) {
+                        if (phase == BODY && untilEof) {
+                            complete(collected.toByteArray());
+                            return;
+                        }
+
+                        throw new EOFException(phase == HEAD ? "Server closed connection without response: " + route : "Unexpected end of body: " + route);
+                    }
+
+                    await(connection.interestOps(SelectionKey.OP_READ));
+                    return;
+                default:
+                    return;
+            }
+    }
+
+    /**
+     * @return true if the phase changed and the machine should continue with buffered bytes
+     */
+    private boolean parseHead(final ByteBuffer in) throws IOException {
+        final HeadParser parser = connection.parser();
+
+        do {
+            if (!parser.feed(in))
+                return false;
+
+            response = new ResponseHead();
+            parser.into(response);
+        } while (response.code >= 100 && response.code < 200 && response.code != 101);
+
+        response.written = body.length;
+        response.writtenAt = System.currentTimeMillis();
+        response.handshake = connection.handshakeTime();
+        reusable = Http1Response.reusable(response, !"close".equalsIgnoreCase(request.header("Connection")));
+        Http1Response.keepAlive(connection, response.header("Keep-Alive"));
+
+        final String te = response.header("Transfer-Encoding");
+        final String cl = response.header("Content-Length");
+
+        if (request.method.equals("HEAD") || response.code == 204 || response.code == 304 || response.code == 101) {
+            response.contentLength = 0;
+            complete(new byte[0]);
+            return false;
+        }
+
+        if (te != null && te.toLowerCase().contains("chunked")) {
+            response.chunked = true;
+            chunks = new ChunkedDecoder(response);
+            collected = new PooledBytes();
+        } else if (cl != null) {
+            try {
+                response.contentLength = Long.parseLong(cl.trim());
+            } catch (final NumberFormatException e) {
+                throw new ProtocolException("Invalid Content-Length: " + cl);
+            }
+
+            if (response.contentLength > Integer.MAX_VALUE - 8 || request.maxBody > 0 && response.contentLength > request.maxBody)
+                throw new ProtocolException("Content-Length " + cl + " is too large to buffer");
+
+            remaining = response.contentLength;
+        } else {
+            reusable = false;
+            untilEof = true;
+            collected = new PooledBytes();
+        }
+
+        phase = BODY;
+
+        return true;
+    }
+
+    /**
+     * Known length is reserved at once, unknown grows by steps covering what is already buffered.
+     * A step past the limit starves the exchange unless it is the only holder
+     */
+    private boolean funded(final ByteBuffer in) throws IOException {
+        final long need = chunks == null && !untilEof ? response.contentLength : collected.size() + in.remaining();
+
+        if (need <= reserved)
+            return true;
+
+        final long more = chunks == null && !untilEof ? need - reserved : Math.max(STEP, need - reserved);
+
+        if (!budget.tryAcquire(more, reserved)) {
+            if (budget.policy() == MemoryBudget.Policy.FAIL)
+                throw budget.rejected(more);
+
+            return false;
+        }
+
+        reserved += more;
+
+        return true;
+    }
+
+    private void starve() throws IOException {
+        starved = true;
+        starvedSince = System.currentTimeMillis();
+
+        if (key != null && key.isValid())
+            key.interestOps(0);
+    }
+
+    private void consumeBody(final ByteBuffer in) throws IOException {
+        if (chunks == null && !untilEof) {
+            if (fixed == null)
+                fixed = new byte[(int) response.contentLength];
+
+            final int n = (int) Math.min(remaining, in.remaining());
+            in.get(fixed, filled, n);
+            filled += n;
+
+            if ((remaining -= n) == 0)
+                complete(fixed);
+        } else if (chunks != null) {
+            while (!chunks.done()) {
+                final ByteBuffer slice = chunks.next(in);
+
+                if (!slice.hasRemaining() && !chunks.done())
+                    return;
+
+                collected.write(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining());
+                limit();
+            }
+
+            complete(collected.toByteArray());
+        } else {
+            collected.write(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+            limit();
+        }
+    }
+
+    private void limit() throws ProtocolException {
+        if (request.maxBody > 0 && collected.size() > request.maxBody)
+            throw new ProtocolException("Response body exceeds " + request.maxBody + " bytes");
+    }
+
+    /**
+     * The body reservation goes on with the response, released when it is closed or taken over by the caller
+     */
+    private void complete(final byte[] bytes) {
+        final BufferedResponse done = new BufferedResponse(response, bytes, budget, reserved);
+
+        phase = DONE;
+        loop.untrack(this);
+        reserved = 0;
+        refund();
+        detach();
+        pool.release(connection, reusable);
+
+        if (!future.complete(done))
+            done.close();
+    }
+
+    /**
+     * Failure on a leased connection: a reused keep-alive socket dropped by the peer before any response byte is retried once on a fresh one
+     */
+    private void failed(final Throwable e) {
+        if (phase == DONE)
+            return;
+
+        detach();
+        pool.release(connection, false);
+
+        if (reused && attempt == 0 && response == null && (phase == WRITE || phase == HEAD) && e instanceof IOException && !(e instanceof SocketTimeoutException)) {
+            attempt++;
+            connection = null;
+            phase = LEASE;
+            lease();
+            return;
+        }
+
+        fail(e);
+    }
+
+    private void fail(final Throwable e) {
+        phase = DONE;
+        loop.untrack(this);
+        refund();
+        future.completeExceptionally(e);
+    }
+
+    private void refund() {
+        if (collected != null)
+            collected.close();
+
+        budget.release(reserved);
+        reserved = 0;
+        starved = false;
+    }
+
+    private void await(final int ops) throws IOException {
+        if (key == null || !key.isValid())
+            key = loop.interest(connection.channel(), ops, this);
+        else {
+            key.interestOps(ops);
+            key.attach(this);
+        }
+    }
+
+    private void detach() {
+        if (key != null && key.isValid()) {
+            key.interestOps(0);
+            key.attach(null);
+        }
+
+        key = null;
+    }
+
+    private void progress() {
+        deadline = request.timeout > 0 ? System.currentTimeMillis() + request.timeout : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,50 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 12:20
+ * fairhttp ☭ sweat and blood
+ *
+ * Response read to its end, the connection is already back in the pool. The budget bytes reserved for the body stay held until close.
+ */
+final class BufferedResponse implements TransportResponse {
+    private final ResponseHead head;
+    private final InputStream body;
+    private final MemoryBudget budget;
+    private final AtomicLong reserved;
+
+    BufferedResponse(final ResponseHead head, final byte[] body, final MemoryBudget budget, final long reserved) {
+        this.head = head;
+        this.body = new ByteArrayInputStream(body);
+        this.budget = budget;
+        this.reserved = new AtomicLong(reserved);
+    }
+
+    @Override
+    public ResponseHead head() {
+        return head;
+    }
+
+    @Override
+    public InputStream body() {
+        return body;
+    }
+
+    @Override
+    public long transfer(final MemoryBudget budget) {
+        return budget == this.budget ? reserved.getAndSet(0) : 0;
+    }
+
+    @Override
+    public void close() {
+        budget.release(reserved.getAndSet(0));
+    }
+}
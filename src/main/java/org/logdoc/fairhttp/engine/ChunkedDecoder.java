@@ -0,0 +1,166 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.transport.ResponseHead;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 10:15
+ * fairhttp ☭ sweat and blood
+ *
+ * Incremental chunked transfer decoder: framing is consumed byte by byte, chunk data is handed out as slices of the input buffer.
+ * Extensions are skipped, trailer fields go to the response head.
+ */
+final class ChunkedDecoder {
+    private static final int SIZE = 0, EXTENSION = 1, SIZE_LF = 2, DATA = 3, DATA_CR = 4, DATA_LF = 5, TRAILER = 6, TRAILER_LINE = 7, TRAILER_LF = 8, DONE = 9;
+    private static final ByteBuffer NOTHING = ByteBuffer.allocate(0);
+
+    private final ResponseHead head;
+
+    private int state = SIZE, digits, line, trailers;
+    private long remaining;
+    private byte[] trailer;
+
+    ChunkedDecoder(final ResponseHead head) {
+        this.head = head;
+    }
+
+    boolean done() {
+        return state == DONE;
+    }
+
+    /**
+     * @return next slice of chunk data (src is advanced past it), empty if src ran out before any data or the body is done
+     */
+    ByteBuffer next(final ByteBuffer src) throws ProtocolException {
+        return next(src, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param max slice size limit, the rest of the chunk stays in src
+     */
+    ByteBuffer next(final ByteBuffer src, final int max) throws ProtocolException {
+        while (src.hasRemaining() && state != DONE) {
+            if (state == DATA) {
+                final int n = (int) Math.min(Math.min(remaining, max), src.remaining());
+                final ByteBuffer slice = src.slice();
+                slice.limit(n);
+                src.position(src.position() + n);
+
+                if ((remaining -= n) == 0)
+                    state = DATA_CR;
+
+                return slice;
+            }
+
+            step(src.get());
+        }
+
+        return NOTHING;
+    }
+
+    private void step(final byte b) throws ProtocolException {
+        switch (state) {
+            case SIZE:
+                final int hex = Character.digit(b, 16);
+
+                if (hex >= 0) {
+                    if (++digits > 15)
+                        throw new ProtocolException("Chunk size is too long");
+
+                    remaining = (remaining << 4) | hex;
+                } else if (digits == 0)
+                    throw new ProtocolException("Invalid chunk size character: " + (char) b);
+                else if (b == ';' || b == ' ' || b == '\t')
+                    state = EXTENSION;
+                else if (b == '\r')
+                    state = SIZE_LF;
+                else if (b == '\n')
+                    sizeLine();
+                else
+                    throw new ProtocolException("Invalid chunk size character: " + (char) b);
+                break;
+            case EXTENSION:
+                if (b == '\n')
+                    sizeLine();
+                else if (++line > Http1Engine.MAX_LINE)
+                    throw new ProtocolException("Chunk extension exceeds " + Http1Engine.MAX_LINE + " bytes");
+                break;
+            case SIZE_LF:
+                if (b != '\n')
+                    throw new ProtocolException("Chunk size is not terminated by CRLF");
+
+                sizeLine();
+                break;
+            case DATA_CR:
+                if (b == '\r')
+                    state = DATA_LF;
+                else if (b == '\n')
+                    state = SIZE;
+                else
+                    throw new ProtocolException("Chunk is not terminated by CRLF");
+                break;
+            case DATA_LF:
+                if (b != '\n')
+                    throw new ProtocolException("Chunk is not terminated by CRLF");
+
+                state = SIZE;
+                break;
+            case TRAILER:
+                if (b == '\r')
+                    state = TRAILER_LF;
+                else if (b == '\n')
+                    state = DONE;
+                else {
+                    if (++trailers > Http1Engine.MAX_HEADERS)
+                        throw new ProtocolException("Too many trailers");
+
+                    if (trailer == null)
+                        trailer = new byte[256];
+
+                    trailer[0] = b;
+                    line = 1;
+                    state = TRAILER_LINE;
+                }
+                break;
+            case TRAILER_LINE:
+                if (b == '\n') {
+                    trailerLine();
+                    state = TRAILER;
+                } else if (line >= Http1Engine.MAX_LINE)
+                    throw new ProtocolException("Trailer exceeds " + Http1Engine.MAX_LINE + " bytes");
+                else {
+                    if (line == trailer.length)
+                        trailer = Arrays.copyOf(trailer, Math.min(line * 2, Http1Engine.MAX_LINE));
+
+                    trailer[line++] = b;
+                }
+                break;
+            case TRAILER_LF:
+                if (b != '\n')
+                    throw new ProtocolException("Chunked body is not terminated by CRLF");
+
+                state = DONE;
+                break;
+            default:
+        }
+    }
+
+    private void trailerLine() {
+        final int end = line > 0 && trailer[line - 1] == '\r' ? line - 1 : line;
+        final String field = new String(trailer, 0, end, StandardCharsets.ISO_8859_1);
+        final int colon = field.indexOf(':');
+
+        if (colon > 0 && head != null)
+            head.trailer(field.substring(0, colon).trim(), field.substring(colon + 1).trim());
+    }
+
+    private void sizeLine() {
+        state = remaining == 0 ? TRAILER : DATA;
+        digits = line = 0;
+    }
+}
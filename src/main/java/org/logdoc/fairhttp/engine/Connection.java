@@ -0,0 +1,551 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+import org.logdoc.fairhttp.helpers.TlsContexts;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 12:10
+ * fairhttp ☭ sweat and blood
+ *
+ * One pooled socket. The channel is always non-blocking, blocking callers wait on a private selector so read/connect timeouts are honored.
+ * Reads and writes wait on separate selectors, so a multiplexed (h2) connection may be read and written from different threads at once.
+ */
+public final class Connection implements AutoCloseable {
+    static final int BUFFER_SIZE = 1024 * 16;
+
+    public final Route route;
+    final long created = System.currentTimeMillis();
+
+    private final Wire wire;
+    private final ByteBuffer in, out;
+
+    private Selector readWaiter, writeWaiter;
+    private InputStream input;
+    private OutputStream output;
+    private HeadParser parser;
+    private int timeout;
+    private volatile boolean closed;
+    private boolean handshakeReported;
+
+    volatile long lastUsed = created;
+    volatile long keepAliveUntil = Long.MAX_VALUE;
+
+    private Connection(final Route route, final Wire wire) {
+        this.route = route;
+        this.wire = wire;
+
+        in = ByteBuffer.allocate(BUFFER_SIZE);
+        in.flip();
+        out = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * @param protocols ALPN protocols offered on tls routes, in preference order
+     */
+    static Connection open(final Route route, final int timeout, final String... protocols) throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        final Connection plain = new Connection(route, new PlainWire(channel));
+        plain.timeout = timeout;
+
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+
+            final InetSocketAddress target = route.direct()
+                    ? new InetSocketAddress(route.host, route.port)
+                    : (InetSocketAddress) route.proxy.address();
+
+            if (!channel.connect(target.isUnresolved() ? new InetSocketAddress(target.getHostString(), target.getPort()) : target)) {
+                plain.await(SelectionKey.OP_CONNECT);
+
+                if (!channel.finishConnect())
+                    throw new SocketTimeoutException("Connect timed out: " + route);
+            }
+
+            if (route.proxy.type() == Proxy.Type.SOCKS)
+                plain.socks5();
+            else if (route.proxy.type() == Proxy.Type.HTTP && route.secure)
+                plain.tunnel();
+
+            if (!route.secure)
+                return plain;
+
+            final Connection secure = new Connection(route, new TlsWire(channel, engine(route, protocols)));
+            secure.readWaiter = plain.readWaiter;
+            secure.writeWaiter = plain.writeWaiter;
+            secure.timeout = timeout;
+            secure.handshake();
+
+            return secure;
+        } catch (final IOException | RuntimeException e) {
+            plain.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Event loop flavour of open(): direct routes only, connect is only started here and finished by the caller on OP_CONNECT
+     */
+    static Connection begin(final Route route) throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            channel.connect(new InetSocketAddress(route.host, route.port));
+
+            return new Connection(route, route.secure ? new TlsWire(channel, engine(route)) : new PlainWire(channel));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    private static SSLEngine engine(final Route route, final String... protocols) throws IOException {
+        final SSLEngine engine = TlsContexts.context(route.allTrusted).createSSLEngine(route.host, route.port);
+        engine.setUseClientMode(true);
+
+        final SSLParameters parameters = TlsContexts.parameters(route.allTrusted, !route.skipHostVerify);
+
+        if (protocols.length > 0)
+            parameters.setApplicationProtocols(protocols);
+
+        engine.setSSLParameters(parameters);
+
+        return engine;
+    }
+
+    public void timeout(final int timeout) {
+        this.timeout = Math.max(0, timeout);
+    }
+
+    public InputStream input() {
+        if (input == null)
+            input = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    return in.hasRemaining() || fill() > 0 ? in.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    if (len == 0)
+                        return 0;
+
+                    if (!in.hasRemaining()) {
+                        if (len >= in.capacity())
+                            return readDirect(ByteBuffer.wrap(b, off, len));
+
+                        if (fill() < 0)
+                            return -1;
+                    }
+
+                    final int n = Math.min(len, in.remaining());
+                    in.get(b, off, n);
+
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return in.remaining();
+                }
+            };
+
+        return input;
+    }
+
+    public OutputStream output() {
+        if (output == null)
+            output = new OutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    if (!out.hasRemaining())
+                        flushOut();
+
+                    out.put((byte) b);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    if (len <= out.remaining()) {
+                        out.put(b, off, len);
+                        return;
+                    }
+
+                    flushOut();
+
+                    if (len < out.capacity())
+                        out.put(b, off, len);
+                    else
+                        writeFully(ByteBuffer.wrap(b, off, len));
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    flushOut();
+                }
+            };
+
+        return output;
+    }
+
+    /**
+     * Reads the next response head into the connection's parser
+     *
+     * @return false on eof before the first byte of the head
+     */
+    boolean readHead() throws IOException {
+        final HeadParser parser = parser();
+        parser.reset();
+
+        while (!parser.feed(in))
+            if (fill() < 0) {
+                if (parser.empty())
+                    return false;
+
+                throw new EOFException("Unexpected end of response head");
+            }
+
+        return true;
+    }
+
+    /**
+     * Response head parser of this connection, reused by every exchange on it
+     */
+    HeadParser parser() {
+        if (parser == null)
+            parser = new HeadParser();
+
+        return parser;
+    }
+
+    public boolean hasBuffered() {
+        return in.hasRemaining();
+    }
+
+    /**
+     * TLS handshake time of this connection in ms, reported to the first exchange only: -1 afterwards, on plain connections and before it is done
+     */
+    public long handshakeTime() {
+        if (handshakeReported || !(wire instanceof TlsWire))
+            return -1;
+
+        final long took = ((TlsWire) wire).handshakeTime();
+        handshakeReported = took >= 0;
+
+        return took;
+    }
+
+    public boolean secure() {
+        return wire.secure();
+    }
+
+    /**
+     * @return protocol negotiated by ALPN, null or empty if none
+     */
+    public String applicationProtocol() {
+        return wire.applicationProtocol();
+    }
+
+    public boolean isOpen() {
+        return !closed && wire.isOpen();
+    }
+
+    /**
+     * Idle connection check before reuse: peer has closed or pushed unexpected bytes.
+     */
+    boolean stale() {
+        if (!isOpen() || in.hasRemaining())
+            return true;
+
+        try {
+            final ByteBuffer probe = ByteBuffer.allocate(1);
+            return wire.read(probe) != 0;
+        } catch (final IOException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+
+        try {
+            wire.close();
+        } catch (final Exception ignore) {
+        }
+
+        close(readWaiter);
+        close(writeWaiter);
+    }
+
+    private static void close(final Selector selector) {
+        if (selector != null)
+            try {
+                selector.close();
+            } catch (final Exception ignore) {
+            }
+    }
+
+    void flushOut() throws IOException {
+        out.flip();
+
+        try {
+            writeFully(out);
+        } finally {
+            out.clear();
+        }
+    }
+
+    void writeFully(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining())
+            if (wire.write(src) == 0)
+                await(wire.interestOps(SelectionKey.OP_WRITE));
+
+        while (!wire.flush())
+            await(SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Sends count bytes of the file after whatever is buffered: sendfile on plain sockets, a bounded buffer through TLS
+     */
+    long transfer(final FileChannel file, final long position, final long count) throws IOException {
+        flushOut();
+
+        long sent = 0;
+
+        if (!wire.secure()) {
+            final SocketChannel channel = wire.channel();
+
+            while (sent < count) {
+                final long n = file.transferTo(position + sent, count - sent, channel);
+
+                if (n > 0)
+                    sent += n;
+                else if (position + sent >= file.size())
+                    throw new EOFException("File is shorter than " + (position + count) + " bytes");
+                else
+                    await(SelectionKey.OP_WRITE);
+            }
+        } else {
+            final ByteBuffer buf = BufferPool.takeDirect(BufferPool.LARGE);
+
+            try {
+                while (sent < count) {
+                    buf.clear().limit((int) Math.min(buf.capacity(), count - sent));
+
+                    final int n = file.read(buf, position + sent);
+
+                    if (n < 0)
+                        throw new EOFException("File is shorter than " + (position + count) + " bytes");
+
+                    buf.flip();
+                    writeFully(buf);
+                    sent += n;
+                }
+            } finally {
+                BufferPool.give(buf);
+            }
+        }
+
+        return sent;
+    }
+
+    SocketChannel channel() {
+        return wire.channel();
+    }
+
+    int interestOps(final int wanted) {
+        return wire.interestOps(wanted);
+    }
+
+    /**
+     * Inbound buffer in read mode, for callers parsing in place
+     */
+    ByteBuffer buffered() {
+        return in;
+    }
+
+    /**
+     * @return true once connected, tls handshake included
+     */
+    boolean connectNow() throws IOException {
+        final SocketChannel channel = wire.channel();
+
+        if (channel.isConnectionPending() && !channel.finishConnect())
+            return false;
+
+        return !(wire instanceof TlsWire) || ((TlsWire) wire).handshake();
+    }
+
+    /**
+     * @return bytes added to the inbound buffer, 0 if nothing is available now, -1 on eof
+     */
+    int readNow() throws IOException {
+        in.compact();
+
+        try {
+            return wire.read(in);
+        } finally {
+            in.flip();
+        }
+    }
+
+    /**
+     * @return true when src is fully handed to the socket
+     */
+    boolean writeNow(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining())
+            if (wire.write(src) == 0)
+                return false;
+
+        return wire.flush();
+    }
+
+    /**
+     * Blocks until more bytes are in the inbound buffer
+     *
+     * @return bytes added, -1 on eof
+     */
+    int fill() throws IOException {
+        in.compact();
+
+        try {
+            return readDirect(in);
+        } finally {
+            in.flip();
+        }
+    }
+
+    private int readDirect(final ByteBuffer dst) throws IOException {
+        int n;
+
+        while ((n = wire.read(dst)) == 0)
+            await(wire.interestOps(SelectionKey.OP_READ));
+
+        return n;
+    }
+
+    private void handshake() throws IOException {
+        final TlsWire tls = (TlsWire) wire;
+
+        while (!tls.handshake())
+            await(wire.interestOps(SelectionKey.OP_READ));
+    }
+
+    private void await(final int ops) throws IOException {
+        final Selector waiter = waiter(ops == SelectionKey.OP_WRITE);
+        final SelectionKey key = wire.channel().register(waiter, ops);
+
+        try {
+            while (waiter.select(timeout) == 0) {
+                if (closed)
+                    throw new ClosedChannelException();
+
+                if (Thread.interrupted())
+                    throw new InterruptedIOException("Interrupted while waiting for " + route);
+
+                if (timeout > 0)
+                    throw new SocketTimeoutException((ops == SelectionKey.OP_CONNECT ? "Connect" : ops == SelectionKey.OP_WRITE ? "Write" : "Read") + " timed out after " + timeout + " ms: " + route);
+            }
+        } finally {
+            if (waiter.isOpen()) {
+                waiter.selectedKeys().clear();
+                key.interestOps(0);
+            }
+        }
+    }
+
+    private synchronized Selector waiter(final boolean write) throws IOException {
+        if (closed)
+            throw new ClosedChannelException();
+
+        if (write)
+            return writeWaiter == null ? writeWaiter = Selector.open() : writeWaiter;
+
+        return readWaiter == null ? readWaiter = Selector.open() : readWaiter;
+    }
+
+    private void socks5() throws IOException {
+        final byte[] host = route.host.getBytes(StandardCharsets.US_ASCII);
+
+        writeFully(ByteBuffer.wrap(new byte[]{5, 1, 0}));
+        final InputStream is = input();
+
+        if (is.read() != 5 || is.read() != 0)
+            throw new ProtocolException("SOCKS proxy refused no-auth method");
+
+        final ByteBuffer request = ByteBuffer.allocate(7 + host.length);
+        request.put((byte) 5).put((byte) 1).put((byte) 0).put((byte) 3).put((byte) host.length).put(host).putShort((short) route.port);
+        request.flip();
+        writeFully(request);
+
+        if (is.read() != 5)
+            throw new ProtocolException("Invalid SOCKS reply");
+
+        final int reply = is.read();
+        is.read();
+
+        int skip;
+        switch (is.read()) {
+            case 1:
+                skip = 4;
+                break;
+            case 4:
+                skip = 16;
+                break;
+            case 3:
+                skip = is.read();
+                break;
+            default:
+                throw new ProtocolException("Invalid SOCKS address type");
+        }
+
+        for (skip += 2; skip > 0; skip--)
+            if (is.read() < 0)
+                throw new EOFException("SOCKS proxy closed connection");
+
+        if (reply != 0)
+            throw new ProtocolException("SOCKS proxy failed to connect " + route.authority() + ", reply code " + reply);
+    }
+
+    private void tunnel() throws IOException {
+        final String authority = route.host + ":" + route.port;
+        writeFully(ByteBuffer.wrap(("CONNECT " + authority + " HTTP/1.1\r\nHost: " + authority + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII)));
+
+        if (!readHead())
+            throw new ProtocolException("Proxy tunnel failed: no response");
+
+        if (parser.code() != 200)
+            throw new ProtocolException("Proxy tunnel failed: " + parser.code() + " " + parser.message());
+    }
+}
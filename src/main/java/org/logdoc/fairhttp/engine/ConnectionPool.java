@@ -0,0 +1,259 @@
+package org.logdoc.fairhttp.engine;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 13:02
+ * fairhttp ☭ sweat and blood
+ *
+ * Keep-alive connections per route. Acquire is a semaphore permit plus a lock-free LIFO poll, so the hottest socket is reused first and cold ones age out.
+ */
+public final class ConnectionPool {
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "fairhttp-pool-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Route, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile int maxPerHost = 64;
+    private volatile long idleTimeout = 60_000, acquireTimeout = 30_000;
+    private ScheduledFuture<?> eviction;
+
+    public ConnectionPool() {
+        schedule();
+    }
+
+    public ConnectionPool maxPerHost(final int maxPerHost) {
+        this.maxPerHost = Math.max(1, maxPerHost);
+        buckets.values().forEach(b -> b.resize(this.maxPerHost));
+
+        return this;
+    }
+
+    public ConnectionPool idleTimeout(final long idleTimeoutMs) {
+        this.idleTimeout = Math.max(1000, idleTimeoutMs);
+        schedule();
+
+        return this;
+    }
+
+    public ConnectionPool acquireTimeout(final long acquireTimeoutMs) {
+        this.acquireTimeout = Math.max(0, acquireTimeoutMs);
+
+        return this;
+    }
+
+    public int maxPerHost() {
+        return maxPerHost;
+    }
+
+    public long idleTimeout() {
+        return idleTimeout;
+    }
+
+    public long acquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public int idle(final Route route) {
+        final Bucket b = buckets.get(route);
+
+        return b == null ? 0 : b.idle.size();
+    }
+
+    public int leased(final Route route) {
+        final Bucket b = buckets.get(route);
+
+        return b == null ? 0 : b.leased.get();
+    }
+
+    public Connection acquire(final Route route, final int timeout) throws IOException {
+        final Bucket bucket = buckets.computeIfAbsent(route, r -> new Bucket(maxPerHost));
+
+        try {
+            if (!bucket.permits.tryAcquire(acquireTimeout > 0 ? acquireTimeout : Long.MAX_VALUE, TimeUnit.MILLISECONDS))
+                throw new ConnectException("No free connection to " + route + " within " + acquireTimeout + " ms, " + bucket.leased.get() + " leased");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for connection to " + route, e);
+        }
+
+        bucket.leased.incrementAndGet();
+
+        try {
+            final Connection c = pollIdle(route);
+
+            if (c != null) {
+                c.timeout(timeout);
+                return c;
+            }
+
+            return Connection.open(route, timeout);
+        } catch (final IOException | RuntimeException e) {
+            unlease(route);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking half of acquire() for event loops: takes a permit if one is free right now
+     */
+    boolean tryLease(final Route route) {
+        final Bucket bucket = buckets.computeIfAbsent(route, r -> new Bucket(maxPerHost));
+
+        if (!bucket.permits.tryAcquire())
+            return false;
+
+        bucket.leased.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Gives back a permit which did not end up with a connection
+     */
+    void unlease(final Route route) {
+        final Bucket bucket = buckets.get(route);
+
+        if (bucket != null) {
+            bucket.leased.decrementAndGet();
+            bucket.permits.release();
+        }
+    }
+
+    /**
+     * @return live idle connection for a caller already holding a permit, null if a new one has to be opened
+     */
+    Connection pollIdle(final Route route) {
+        final Bucket bucket = buckets.get(route);
+        final long now = System.currentTimeMillis();
+        Connection c;
+
+        while (bucket != null && (c = bucket.idle.pollFirst()) != null)
+            if (expired(c, now) || c.stale())
+                c.close();
+            else
+                return c;
+
+        return null;
+    }
+
+    /**
+     * @param reusable connection is at a message boundary and peer did not ask to close it
+     */
+    public void release(final Connection c, final boolean reusable) {
+        final Bucket bucket = buckets.get(c.route);
+
+        if (reusable && c.isOpen() && !c.hasBuffered() && bucket != null && bucket.idle.size() < maxPerHost) {
+            c.lastUsed = System.currentTimeMillis();
+            bucket.idle.offerFirst(c);
+        } else
+            c.close();
+
+        if (bucket != null) {
+            bucket.leased.decrementAndGet();
+            bucket.permits.release();
+        }
+    }
+
+    /**
+     * Takes an idle connection opened outside of the pool (e.g. ALPN settled on http/1.1 for an h2 attempt)
+     */
+    public void adopt(final Connection c) {
+        final Bucket bucket = buckets.computeIfAbsent(c.route, r -> new Bucket(maxPerHost));
+
+        if (c.isOpen() && !c.hasBuffered() && bucket.idle.size() < maxPerHost) {
+            c.lastUsed = System.currentTimeMillis();
+            bucket.idle.offerFirst(c);
+        } else
+            c.close();
+    }
+
+    /**
+     * Closes expired idle connections. Buckets stay for the life of the pool: permits and lease counts are settled through
+     * buckets.get(route), dropping one under a lease in flight would hand its release to a fresh bucket
+     */
+    public void evictIdle() {
+        final long now = System.currentTimeMillis();
+
+        buckets.values().forEach(b -> {
+            for (final Iterator<Connection> i = b.idle.descendingIterator(); i.hasNext(); ) {
+                final Connection c = i.next();
+
+                if (expired(c, now) && b.idle.removeFirstOccurrence(c))
+                    c.close();
+            }
+        });
+    }
+
+    public void shutdown() {
+        if (eviction != null)
+            eviction.cancel(false);
+
+        buckets.values().forEach(b -> {
+            Connection c;
+            while ((c = b.idle.pollFirst()) != null)
+                c.close();
+        });
+    }
+
+    private boolean expired(final Connection c, final long now) {
+        return now - c.lastUsed >= idleTimeout || now >= c.keepAliveUntil;
+    }
+
+    private synchronized void schedule() {
+        if (eviction != null)
+            eviction.cancel(false);
+
+        final long period = Math.max(500, idleTimeout / 2);
+        eviction = evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Bucket {
+        private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger leased = new AtomicInteger(0);
+        private final Semaphore permits;
+        private int size;
+
+        private Bucket(final int size) {
+            this.size = size;
+            permits = new ResizableSemaphore(size);
+        }
+
+        private synchronized void resize(final int to) {
+            if (to > size)
+                permits.release(to - size);
+            else if (to < size)
+                ((ResizableSemaphore) permits).reducePermits(size - to);
+
+            size = to;
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        private ResizableSemaphore(final int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(final int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.logdoc.fairhttp.engine;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 11:00
+ * fairhttp ☭ sweat and blood
+ *
+ * One selector thread. Handlers are touched only from this thread: tasks from outside are queued and the selector is woken up.
+ * A handler that throws is aborted with the failure, the loop goes on with the rest. Tasks complete their own futures on failure.
+ */
+final class EventLoop implements Runnable {
+    private static final long TICK = 25;
+
+    interface Handler {
+        void ready(SelectionKey key);
+
+        /**
+         * Periodic check for deadlines and anything waiting without a channel event
+         */
+        void tick(long now);
+
+        /**
+         * Ends the handler's call with the failure: a handler that threw, or the loop shutting down
+         */
+        void abort(Throwable failure);
+    }
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Set<Handler> tracked = new HashSet<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    EventLoop(final String name) throws IOException {
+        selector = Selector.open();
+
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @throws RejectedExecutionException once the loop is shut down
+     */
+    void execute(final Runnable task) {
+        synchronized (tasks) {
+            if (closed)
+                throw new RejectedExecutionException("Event loop is shut down");
+
+            tasks.add(task);
+        }
+
+        selector.wakeup();
+    }
+
+    /**
+     * Loop ends after the current pass: queued tasks still run, then every tracked handler is aborted and the channels are closed with the selector
+     */
+    void shutdown() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    void track(final Handler handler) {
+        tracked.add(handler);
+    }
+
+    void untrack(final Handler handler) {
+        tracked.remove(handler);
+    }
+
+    int tracked() {
+        return tracked.size();
+    }
+
+    SelectionKey interest(final SelectableChannel channel, final int ops, final Handler handler) throws IOException {
+        return channel.register(selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        long lastTick = System.currentTimeMillis();
+
+        while (!closed) {
+            try {
+                selector.select(tracked.isEmpty() ? 0 : TICK);
+            } catch (final IOException e) {
+                closed = true;
+                abortAll(e);
+                break;
+            }
+
+            for (final Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                final SelectionKey key = i.next();
+                i.remove();
+
+                if (key.isValid() && key.attachment() instanceof Handler) {
+                    final Handler handler = (Handler) key.attachment();
+
+                    try {
+                        handler.ready(key);
+                    } catch (final Throwable t) {
+                        handler.abort(t);
+                    }
+                }
+            }
+
+            runTasks();
+
+            final long now = System.currentTimeMillis();
+            if (now - lastTick >= TICK) {
+                lastTick = now;
+
+                for (final Handler handler : new ArrayList<>(tracked))
+                    try {
+                        handler.tick(now);
+                    } catch (final Throwable t) {
+                        handler.abort(t);
+                    }
+            }
+        }
+
+        synchronized (tasks) { // nothing is queued after this
+            runTasks();
+        }
+
+        abortAll(new IOException("Event loop is shut down"));
+
+        try {
+            for (final SelectionKey key : selector.keys())
+                key.channel().close();
+
+            selector.close();
+        } catch (final IOException ignore) {
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = tasks.poll()) != null)
+            try {
+                task.run();
+            } catch (final RuntimeException ignore) { // a task fails its own future
+            }
+    }
+
+    private void abortAll(final Throwable failure) {
+        for (final Handler handler : new ArrayList<>(tracked))
+            try {
+                handler.abort(failure);
+            } catch (final RuntimeException ignore) {
+            }
+
+        tracked.clear();
+    }
+}
@@ -0,0 +1,173 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.structs.HeaderMap;
+import org.logdoc.fairhttp.transport.ResponseHead;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 11:40
+ * fairhttp ☭ sweat and blood
+ *
+ * Incremental HTTP/1.x response head parser: bytes are taken from the buffer up to the empty line and never past it, so the body stays in place.
+ * Lines are kept in one reusable array, fields become a lazy HeaderMap over a single copy of the block. Line size and field count are limited.
+ */
+public final class HeadParser {
+    private static final byte[] HTTP11 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII), HTTP10 = "HTTP/1.0".getBytes(StandardCharsets.US_ASCII);
+
+    private final int maxLine, maxFields;
+
+    private byte[] buf = new byte[512];
+    private int length, lineStart, statusEnd = -1, fields, code;
+    private boolean done;
+
+    public HeadParser() {
+        this(Http1Engine.MAX_LINE, Http1Engine.MAX_HEADERS);
+    }
+
+    public HeadParser(final int maxLine, final int maxFields) {
+        this.maxLine = maxLine;
+        this.maxFields = maxFields;
+    }
+
+    /**
+     * Takes bytes of src up to the end of the head, a finished parser starts over with a new head
+     *
+     * @return true once the empty line is reached
+     */
+    public boolean feed(final ByteBuffer src) throws ProtocolException {
+        if (done)
+            reset();
+
+        while (src.hasRemaining()) {
+            final byte b = src.get();
+
+            if (b != '\n') {
+                if (length - lineStart >= maxLine)
+                    throw new ProtocolException((statusEnd < 0 ? "Status line" : "Header line") + " exceeds " + maxLine + " bytes");
+
+                append(b);
+                continue;
+            }
+
+            final int end = length > lineStart && buf[length - 1] == '\r' ? length - 1 : length;
+
+            if (end == lineStart) {
+                if (statusEnd >= 0)
+                    return done = true;
+
+                length = lineStart = 0; // stray empty lines before the status line are skipped
+                continue;
+            }
+
+            if (statusEnd < 0)
+                status(end);
+            else if (++fields > maxFields)
+                throw new ProtocolException("Too many headers");
+
+            append(b);
+            lineStart = length;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if nothing of a head was taken yet
+     */
+    public boolean empty() {
+        return length == 0;
+    }
+
+    public void reset() {
+        length = lineStart = fields = code = 0;
+        statusEnd = -1;
+        done = false;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String version() {
+        final int sp = space();
+
+        return same(HTTP11, sp) ? "HTTP/1.1" : same(HTTP10, sp) ? "HTTP/1.0" : new String(buf, 0, sp, StandardCharsets.US_ASCII);
+    }
+
+    public String message() {
+        final int from = space() + 5;
+
+        return from >= statusEnd ? "" : new String(buf, from, statusEnd - from, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Fields of the finished head, parsed lazily over their own copy of the bytes
+     */
+    public HeaderMap headers() throws ProtocolException {
+        if (!done)
+            throw new IllegalStateException("Head is not complete");
+
+        final int from = statusEnd + (buf[statusEnd] == '\r' ? 2 : 1);
+
+        return from >= lineStart ? new HeaderMap(0) : HeaderMap.parse(Arrays.copyOfRange(buf, from, lineStart), 0, lineStart - from);
+    }
+
+    /**
+     * Status and fields of the finished head go to the response head, previous fields are dropped
+     */
+    public void into(final ResponseHead head) throws ProtocolException {
+        head.code = code;
+        head.version = version();
+        head.message = message();
+        head.headers.clear();
+        head.headers.addAll(headers());
+    }
+
+    private void status(final int end) throws ProtocolException {
+        statusEnd = end;
+
+        final int sp = space();
+
+        if (sp < 6 || sp + 4 > end || buf[0] != 'H' || buf[1] != 'T' || buf[2] != 'T' || buf[3] != 'P' || buf[4] != '/' || sp + 4 < end && buf[sp + 4] != ' ')
+            throw new ProtocolException("Invalid status line: " + new String(buf, 0, end, StandardCharsets.ISO_8859_1));
+
+        code = 0;
+        for (int i = sp + 1; i < sp + 4; i++) {
+            if (buf[i] < '0' || buf[i] > '9')
+                throw new ProtocolException("Invalid status line: " + new String(buf, 0, end, StandardCharsets.ISO_8859_1));
+
+            code = code * 10 + buf[i] - '0';
+        }
+    }
+
+    private int space() {
+        int i = 0;
+        while (i < statusEnd && buf[i] != ' ')
+            i++;
+
+        return i;
+    }
+
+    private boolean same(final byte[] token, final int to) {
+        if (to != token.length)
+            return false;
+
+        for (int i = 0; i < to; i++)
+            if (buf[i] != token[i])
+                return false;
+
+        return true;
+    }
+
+    private void append(final byte b) {
+        if (length == buf.length)
+            buf = Arrays.copyOf(buf, length * 2);
+
+        buf[length++] = b;
+    }
+}
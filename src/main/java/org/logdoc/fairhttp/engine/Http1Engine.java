@@ -0,0 +1,246 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.structs.HeaderMap;
+import org.logdoc.fairhttp.structs.Point;
+import org.logdoc.fairhttp.structs.traits.Headers;
+import org.logdoc.fairhttp.structs.traits.Schemas;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.ChunkedOutputStream;
+import org.logdoc.fairhttp.transport.RequestHead;
+import org.logdoc.fairhttp.transport.Transport;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 14:50
+ * fairhttp ☭ sweat and blood
+ *
+ * HTTP/1.1 over pooled keep-alive connections. Message framing (Content-Length / chunked) is owned by the engine, not by caller headers.
+ */
+public final class Http1Engine implements Transport {
+    static final int MAX_LINE = 1024 * 64, MAX_HEADERS = 512, MAX_REDIRECTS = 20;
+
+    private final ConnectionPool pool;
+
+    public Http1Engine(final ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    @Override
+    public Http1Response exchange(final RequestHead head, final BodySource body) throws IOException {
+        return follow(head, body, this::exchange0);
+    }
+
+    /**
+     * Redirect loop shared by the native engines and the HttpURLConnection transport, each hop is a fresh exchange
+     */
+    public static <R extends TransportResponse> R follow(RequestHead head, BodySource body, final Exchange<R> exchange) throws IOException {
+        for (int hops = 0; ; hops++) {
+            final R response = exchange.exchange(head, body);
+            final Hop hop = hop(head, body, response, hops);
+
+            if (hop == null)
+                return response;
+
+            response.close();
+            head = hop.head;
+            body = hop.body;
+        }
+    }
+
+    /**
+     * @return next request if the response is a redirect which should be followed, null otherwise
+     */
+    static Hop hop(final RequestHead head, final BodySource body, final TransportResponse response, final int hops) {
+        final int code = response.head().code;
+
+        if (!head.followRedirects || hops >= MAX_REDIRECTS || !redirect(code))
+            return null;
+
+        final String location = response.head().header("Location");
+        final Point next = isEmpty(location) ? null : resolve(head.destination, location);
+
+        if (next == null || (code > 303 && !body.replayable()))
+            return null;
+
+        if (code == 303 || (code < 303 && !head.method.equals("GET") && !head.method.equals("HEAD")))
+            return new Hop(head.redirect("GET", next), BodySource.EMPTY);
+
+        return new Hop(head.redirect(head.method, next), body);
+    }
+
+    Http1Response exchange0(final RequestHead head, final BodySource body) throws IOException {
+        final Route route = new Route(head.destination, head.proxy, head.allTrusted, head.skipHostVerify);
+
+        for (int attempt = 0; ; attempt++) {
+            final Connection connection = pool.acquire(route, head.timeout);
+            final boolean reused = connection.created != connection.lastUsed;
+            final Http1Response response = new Http1Response(pool, connection);
+
+            try {
+                response.head.written = write(connection, route, head, body);
+                response.head.writtenAt = System.currentTimeMillis();
+                response.head.handshake = connection.handshakeTime();
+
+                if (response.readHead(head.method.equals("HEAD"), !"close".equalsIgnoreCase(head.header(Headers.Connection))))
+                    return response;
+
+                response.abort();
+
+                if (!reused || attempt > 0 || !body.replayable())
+                    throw new IOException("Server closed connection without response: " + route);
+            } catch (final IOException | RuntimeException e) {
+                response.abort();
+
+                if (!reused || attempt > 0 || !body.replayable() || response.head.code > 0)
+                    throw e;
+            }
+        }
+    }
+
+    private long write(final Connection connection, final Route route, final RequestHead request, final BodySource body) throws IOException {
+        final long length = body.length();
+        final OutputStream os = connection.output();
+        os.write(head(route, request, length));
+
+        long written = 0;
+
+        if (length < 0) {
+            final ChunkedOutputStream cos = new ChunkedOutputStream(os);
+            body.writeTo(cos);
+            cos.finish();
+            written = cos.written();
+        } else if (body instanceof BodySource.File) {
+            try (final FileChannel file = FileChannel.open(((BodySource.File) body).path, StandardOpenOption.READ)) {
+                written = connection.transfer(file, 0, length);
+            }
+        } else if (length > 0) {
+            body.writeTo(os);
+            written = length;
+        }
+
+        os.flush();
+
+        return written;
+    }
+
+    /**
+     * Request line and headers, framing headers are derived from the body length
+     */
+    static byte[] head(final Route route, final RequestHead request, final long length) {
+        final String line = request.method + ' ' + target(route, request) + " HTTP/1.1\r\n";
+        final String framing = length < 0 ? Headers.TransferEncoding + ": chunked\r\n\r\n"
+                : length > 0 || mayHaveBody(request.method) ? Headers.ContentLength + ": " + length + "\r\n\r\n" : "\r\n";
+
+        if (request.encoded != null) {
+            final byte[] l = line.getBytes(StandardCharsets.ISO_8859_1), f = framing.getBytes(StandardCharsets.ISO_8859_1);
+            final byte[] head = new byte[l.length + request.encoded.length + f.length];
+
+            System.arraycopy(l, 0, head, 0, l.length);
+            System.arraycopy(request.encoded, 0, head, l.length, request.encoded.length);
+            System.arraycopy(f, 0, head, l.length + request.encoded.length, f.length);
+
+            return head;
+        }
+
+        return lines(new StringBuilder(256).append(line), route, request.headers).append(framing).toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Header lines without request line and framing, what a prepared call keeps encoded
+     */
+    public static byte[] headers(final Route route, final HeaderMap headers) {
+        if (!headers.frozen() || headers.containsKey(Headers.ContentLength) || headers.containsKey(Headers.TransferEncoding))
+            return lines(new StringBuilder(256), route, headers).toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        final byte[] prefix = defaults(new StringBuilder(64), route, headers).toString().getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] lines = headers.encoded(), encoded = Arrays.copyOf(prefix, prefix.length + lines.length);
+        System.arraycopy(lines, 0, encoded, prefix.length, lines.length);
+
+        return encoded;
+    }
+
+    private static StringBuilder defaults(final StringBuilder head, final Route route, final HeaderMap headers) {
+        if (!headers.containsKey(Headers.Host))
+            head.append(Headers.Host).append(": ").append(route.authority()).append("\r\n");
+
+        if (!headers.containsKey("User-Agent"))
+            head.append("User-Agent: FairHttp\r\n");
+
+        return head;
+    }
+
+    private static StringBuilder lines(final StringBuilder head, final Route route, final HeaderMap headers) {
+        defaults(head, route, headers);
+
+        headers.forEachField((k, v) -> {
+            if (isEmpty(k) || isEmpty(v) || k.equalsIgnoreCase(Headers.ContentLength) || k.equalsIgnoreCase(Headers.TransferEncoding))
+                return;
+
+            if (unsafe(k) || unsafe(v))
+                throw new IllegalArgumentException("Illegal character(s) in header " + k);
+
+            head.append(k).append(": ").append(v).append("\r\n");
+        });
+
+        return head;
+    }
+
+    private static String target(final Route route, final RequestHead request) {
+        if (route.proxy.type() == Proxy.Type.HTTP && !route.secure)
+            return "http://" + route.authority() + request.destination.descriptor();
+
+        return request.destination.descriptor();
+    }
+
+    private static boolean unsafe(final String s) {
+        return s.indexOf('\r') != -1 || s.indexOf('\n') != -1;
+    }
+
+    private static boolean mayHaveBody(final String method) {
+        return method.equals("POST") || method.equals("PUT") || method.equals("PATCH");
+    }
+
+    private static boolean redirect(final int code) {
+        return code == 301 || code == 302 || code == 303 || code == 307 || code == 308;
+    }
+
+    private static Point resolve(final Point base, final String location) {
+        try {
+            final URL url = new URL(base.url(), location);
+
+            return new Point(Schemas.valueOf(url.getProtocol().toLowerCase()), url.getHost(), url.getPort(), url.getPath(), url.getQuery());
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    static final class Hop {
+        final RequestHead head;
+        final BodySource body;
+
+        private Hop(final RequestHead head, final BodySource body) {
+            this.head = head;
+            this.body = body;
+        }
+    }
+
+    public interface Exchange<R extends TransportResponse> {
+        R exchange(RequestHead head, BodySource body) throws IOException;
+    }
+}
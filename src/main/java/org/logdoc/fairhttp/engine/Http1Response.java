@@ -0,0 +1,270 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 14:05
+ * fairhttp ☭ sweat and blood
+ *
+ * Response head plus framed body over a leased connection. Closing returns the connection to the pool if the body was read to its end.
+ */
+public final class Http1Response implements TransportResponse {
+    private static final int DRAIN_LIMIT = 1024 * 64;
+
+    final ResponseHead head = new ResponseHead();
+
+    private final ConnectionPool pool;
+    private Connection connection;
+    private InputStream body;
+    private boolean reusable, done;
+
+    Http1Response(final ConnectionPool pool, final Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    @Override
+    public ResponseHead head() {
+        return head;
+    }
+
+    @Override
+    public InputStream body() {
+        return body;
+    }
+
+    /**
+     * @return false if head parsing hit eof before the first byte: the peer dropped a reused keep-alive connection
+     */
+    boolean readHead(final boolean headRequest, final boolean requestKeepAlive) throws IOException {
+        do {
+            if (!connection.readHead())
+                return false;
+
+            connection.parser().into(head);
+        } while (head.code >= 100 && head.code < 200 && head.code != 101);
+
+        reusable = reusable(head, requestKeepAlive);
+        keepAlive(connection, head.header("Keep-Alive"));
+
+        final String te = head.header("Transfer-Encoding");
+        final String cl = head.header("Content-Length");
+
+        if (headRequest || head.code == 204 || head.code == 304 || head.code == 101) {
+            head.contentLength = 0;
+            body = new Fixed(0);
+        } else if (te != null && te.toLowerCase().contains("chunked")) {
+            head.chunked = true;
+            body = new Chunked();
+        } else if (cl != null) {
+            try {
+                head.contentLength = Long.parseLong(cl.trim());
+            } catch (final NumberFormatException e) {
+                throw new ProtocolException("Invalid Content-Length: " + cl);
+            }
+
+            body = new Fixed(head.contentLength);
+        } else {
+            reusable = false;
+            body = new UntilEof();
+        }
+
+        if (done)
+            release();
+
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (connection == null)
+            return;
+
+        if (!done && reusable && (body instanceof Chunked || body instanceof Fixed && ((Fixed) body).remaining <= DRAIN_LIMIT))
+            try {
+                final byte[] sink = BufferPool.take(BufferPool.SMALL);
+                int drained = 0, n;
+
+                try {
+                    while (!done && drained <= DRAIN_LIMIT && (n = body.read(sink)) != -1)
+                        drained += n;
+                } finally {
+                    BufferPool.give(sink);
+                }
+            } catch (final IOException ignore) {
+                reusable = false;
+            }
+
+        if (done)
+            release();
+        else
+            abort();
+    }
+
+    void abort() {
+        if (connection != null) {
+            pool.release(connection, false);
+            connection = null;
+        }
+    }
+
+    private void release() {
+        if (connection != null) {
+            pool.release(connection, reusable);
+            connection = null;
+        }
+    }
+
+    static boolean reusable(final ResponseHead head, final boolean requestKeepAlive) {
+        final String connectionHeader = head.header("Connection");
+
+        return requestKeepAlive
+                && (head.version.equals("HTTP/1.1") ? !"close".equalsIgnoreCase(connectionHeader) : "keep-alive".equalsIgnoreCase(connectionHeader));
+    }
+
+    static void keepAlive(final Connection connection, final String header) {
+        if (header == null)
+            return;
+
+        for (final String param : header.split(","))
+            if (param.trim().toLowerCase().startsWith("timeout="))
+                try {
+                    final long seconds = Long.parseLong(param.trim().substring(8).trim());
+                    connection.keepAliveUntil = System.currentTimeMillis() + Math.max(0, seconds * 1000 - 500);
+                } catch (final NumberFormatException ignore) {
+                }
+    }
+
+    private void finished() {
+        done = true;
+        release();
+    }
+
+    private final class Fixed extends InputStream {
+        private long remaining;
+
+        private Fixed(final long length) {
+            remaining = length;
+
+            if (remaining <= 0)
+                done = true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0)
+                return -1;
+
+            final int b = connection.input().read();
+            if (b < 0)
+                throw new EOFException("Unexpected end of body, " + remaining + " bytes left");
+
+            if (--remaining == 0)
+                finished();
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining <= 0)
+                return -1;
+
+            final int n = connection.input().read(b, off, (int) Math.min(len, remaining));
+            if (n < 0)
+                throw new EOFException("Unexpected end of body, " + remaining + " bytes left");
+
+            if ((remaining -= n) == 0)
+                finished();
+
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return connection == null ? 0 : (int) Math.min(remaining, connection.input().available());
+        }
+    }
+
+    /**
+     * Decodes in place on the connection buffer, no per-line allocation
+     */
+    private final class Chunked extends InputStream {
+        private final ChunkedDecoder decoder = new ChunkedDecoder(head);
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (done)
+                return -1;
+
+            if (len == 0)
+                return 0;
+
+            while (true) {
+                final ByteBuffer slice = decoder.next(connection.buffered(), len);
+
+                if (slice.hasRemaining()) {
+                    final int n = slice.remaining();
+                    slice.get(b, off, n);
+
+                    return n;
+                }
+
+                if (decoder.done()) {
+                    finished();
+                    return -1;
+                }
+
+                if (connection.fill() < 0)
+                    throw new EOFException("Unexpected end of chunked body");
+            }
+        }
+
+        @Override
+        public int available() {
+            return done ? 0 : connection.buffered().remaining();
+        }
+    }
+
+    private final class UntilEof extends InputStream {
+        @Override
+        public int read() throws IOException {
+            if (done)
+                return -1;
+
+            final int b = connection.input().read();
+            if (b < 0)
+                finished();
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (done)
+                return -1;
+
+            final int n = connection.input().read(b, off, len);
+            if (n < 0)
+                finished();
+
+            return n;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.engine.h2.Http2Connection;
+import org.logdoc.fairhttp.engine.h2.Http2Settings;
+import org.logdoc.fairhttp.engine.h2.RefusedStreamException;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.RequestHead;
+import org.logdoc.fairhttp.transport.Transport;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 14:10
+ * fairhttp ☭ sweat and blood
+ *
+ * HTTP/2 with one multiplexed connection per route. TLS routes negotiate h2 by ALPN, plain routes speak h2c only with prior knowledge.
+ * Routes which settle on http/1.1 are remembered and served by the fallback engine from then on.
+ */
+public final class Http2Engine implements Transport {
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "fairhttp-h2-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Http1Engine fallback;
+    private final Http2Settings settings;
+    private final Map<Route, CompletableFuture<Http2Connection>> connections = new ConcurrentHashMap<>();
+    private final Set<Route> http1 = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> eviction;
+
+    public Http2Engine(final Http1Engine fallback, final Http2Settings settings) {
+        this.fallback = fallback;
+        this.settings = settings;
+
+        eviction = evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public Http2Settings settings() {
+        return settings;
+    }
+
+    public Http1Engine fallback() {
+        return fallback;
+    }
+
+    @Override
+    public String name() {
+        return "h2";
+    }
+
+    @Override
+    public TransportResponse exchange(final RequestHead head, final BodySource body) throws IOException {
+        return Http1Engine.follow(head, body, this::exchange0);
+    }
+
+    public void evictIdle() {
+        final long now = System.currentTimeMillis();
+
+        connections.forEach((route, f) -> {
+            final Http2Connection c = f.getNow(null);
+
+            if (c != null && c.active() == 0 && (!c.usable() || now - c.lastActive() >= settings.idleTimeout()) && connections.remove(route, f))
+                c.shutdown();
+        });
+    }
+
+    public void shutdown() {
+        eviction.cancel(false);
+
+        connections.values().forEach(f -> {
+            final Http2Connection c = f.getNow(null);
+
+            if (c != null)
+                c.shutdown();
+        });
+
+        connections.clear();
+    }
+
+    private TransportResponse exchange0(final RequestHead head, final BodySource body) throws IOException {
+        final Route route = new Route(head.destination, head.proxy, head.allTrusted, head.skipHostVerify);
+
+        if (!multiplexed(route))
+            return fallback.exchange0(head, body);
+
+        for (int attempt = 0; ; attempt++) {
+            final Http2Connection connection = connection(route, head.timeout);
+
+            if (connection == null)
+                return fallback.exchange0(head, body);
+
+            try {
+                return connection.exchange(head, body);
+            } catch (final RefusedStreamException e) {
+                if (attempt > 0 || !body.replayable())
+                    throw e;
+            }
+        }
+    }
+
+    private boolean multiplexed(final Route route) {
+        if (http1.contains(route))
+            return false;
+
+        return route.secure || (settings.priorKnowledge() && route.proxy.type() != Proxy.Type.HTTP);
+    }
+
+    /**
+     * @return live h2 connection, null if the route turned out to be http/1.1 only
+     */
+    private Http2Connection connection(final Route route, final int timeout) throws IOException {
+        while (true) {
+            CompletableFuture<Http2Connection> f = connections.get(route);
+
+            if (f == null) {
+                final CompletableFuture<Http2Connection> mine = new CompletableFuture<>();
+
+                if ((f = connections.putIfAbsent(route, mine)) == null)
+                    return connect(route, timeout, mine);
+            }
+
+            final Http2Connection c;
+            try {
+                c = f.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for h2 connection to " + route, e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+
+                throw new IOException(e.getCause());
+            }
+
+            if (c == null || c.usable())
+                return c;
+
+            connections.remove(route, f);
+        }
+    }
+
+    private Http2Connection connect(final Route route, final int timeout, final CompletableFuture<Http2Connection> f) throws IOException {
+        try {
+            final Connection c = route.secure ? Connection.open(route, timeout, "h2", "http/1.1") : Connection.open(route, timeout);
+
+            if (route.secure && !"h2".equals(c.applicationProtocol())) {
+                http1.add(route);
+                connections.remove(route, f);
+                fallback.pool().adopt(c);
+                f.complete(null);
+
+                return null;
+            }
+
+            final Http2Connection h2 = Http2Connection.start(c, settings);
+            f.complete(h2);
+
+            return h2;
+        } catch (final IOException | RuntimeException e) {
+            connections.remove(route, f);
+            f.completeExceptionally(e);
+
+            throw e;
+        }
+    }
+}
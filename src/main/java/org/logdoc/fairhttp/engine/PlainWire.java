@@ -0,0 +1,53 @@
+package org.logdoc.fairhttp.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 11:05
+ * fairhttp ☭ sweat and blood
+ */
+final class PlainWire implements Wire {
+    private final SocketChannel channel;
+
+    PlainWire(final SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public int interestOps(final int wanted) {
+        return wanted;
+    }
+
+    @Override
+    public boolean flush() {
+        return true;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        return channel.read(dst);
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        return channel.write(src);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,67 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.structs.Point;
+import org.logdoc.fairhttp.structs.traits.Schemas;
+
+import java.net.Proxy;
+import java.util.Objects;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 11:48
+ * fairhttp ☭ sweat and blood
+ *
+ * Pooling key: connections are shared only between calls with equal schema/host/port, proxy and tls policy
+ */
+public final class Route {
+    public final Schemas schema;
+    public final String host;
+    public final int port;
+    public final Proxy proxy;
+    public final boolean secure, allTrusted, skipHostVerify;
+
+    private final int hash;
+
+    public Route(final Point point, final Proxy proxy, final boolean allTrusted, final boolean skipHostVerify) {
+        this(point.schema, point.host, point.port, proxy, allTrusted, skipHostVerify);
+    }
+
+    public Route(final Schemas schema, final String host, final int port, final Proxy proxy, final boolean allTrusted, final boolean skipHostVerify) {
+        this.schema = schema;
+        this.host = host.trim().toLowerCase();
+        this.port = port <= 0 ? schema.port : port;
+        this.proxy = proxy == null ? Proxy.NO_PROXY : proxy;
+        this.secure = schema == Schemas.https || schema == Schemas.wss;
+        this.allTrusted = secure && allTrusted;
+        this.skipHostVerify = secure && skipHostVerify;
+
+        hash = Objects.hash(secure, this.host, this.port, this.proxy, this.allTrusted, this.skipHostVerify);
+    }
+
+    public boolean direct() {
+        return proxy.type() == Proxy.Type.DIRECT;
+    }
+
+    public String authority() {
+        return port == schema.port ? host : host + ":" + port;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final Route route = (Route) o;
+        return hash == route.hash && secure == route.secure && port == route.port && allTrusted == route.allTrusted
+                && skipHostVerify == route.skipHostVerify && host.equals(route.host) && proxy.equals(route.proxy);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return (secure ? "https://" : "http://") + host + ":" + port + (direct() ? "" : " via " + proxy);
+    }
+}
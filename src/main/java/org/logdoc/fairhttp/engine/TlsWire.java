@@ -0,0 +1,276 @@
+package org.logdoc.fairhttp.engine;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 11:20
+ * fairhttp ☭ sweat and blood
+ *
+ * SSLEngine over a non-blocking channel. Handshake (and any renegotiation) is driven lazily from read/write.
+ * Outbound side (wrap + netOut) is guarded by the wire monitor, so one reader and several writers may share it.
+ */
+final class TlsWire implements Wire {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+
+    private ByteBuffer netIn, netOut, appIn;
+    private boolean started, handshaken, wantWrite;
+    private long begun, took = -1;
+
+    TlsWire(final SocketChannel channel, final SSLEngine engine) {
+        this.channel = channel;
+        this.engine = engine;
+
+        netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        netOut.flip();
+        appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+    }
+
+    @Override
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public boolean secure() {
+        return true;
+    }
+
+    @Override
+    public String applicationProtocol() {
+        return handshaken ? engine.getApplicationProtocol() : null;
+    }
+
+    @Override
+    public int interestOps(final int wanted) {
+        return netOut.hasRemaining() || wantWrite ? SelectionKey.OP_WRITE : !handshaken ? SelectionKey.OP_READ : wanted;
+    }
+
+    @Override
+    public synchronized boolean flush() throws IOException {
+        while (netOut.hasRemaining())
+            if (channel.write(netOut) == 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return ms the initial handshake took, -1 until it is done
+     */
+    long handshakeTime() {
+        return took;
+    }
+
+    boolean handshake() throws IOException {
+        if (!started) {
+            engine.beginHandshake();
+            begun = System.nanoTime();
+            started = true;
+        }
+
+        while (true)
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null)
+                        task.run();
+                    break;
+                case NEED_WRAP:
+                    if (!flush()) {
+                        wantWrite = true;
+                        return false;
+                    }
+
+                    synchronized (this) {
+                        wrap(EMPTY);
+                    }
+                    break;
+                case NEED_UNWRAP:
+                case NEED_UNWRAP_AGAIN:
+                    wantWrite = false;
+                    if (!flush())
+                        return false;
+
+                    final SSLEngineResult result = unwrap();
+
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        final int n = channel.read(netIn);
+
+                        if (n < 0)
+                            throw new EOFException("Connection closed during TLS handshake");
+
+                        if (n == 0)
+                            return false;
+                    } else if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+                        throw new SSLException("TLS engine closed during handshake");
+                    break;
+                default: // FINISHED, NOT_HANDSHAKING
+                    wantWrite = false;
+                    if (!flush())
+                        return false;
+
+                    if (took < 0)
+                        took = (System.nanoTime() - begun) / 1_000_000;
+
+                    handshaken = true;
+                    return true;
+            }
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        while (true) {
+            if (appIn.position() > 0)
+                return drain(dst);
+
+            if (!handshaken && !handshake())
+                return 0;
+
+            final SSLEngineResult result = unwrap();
+
+            switch (result.getStatus()) {
+                case BUFFER_UNDERFLOW:
+                    final int n = channel.read(netIn);
+
+                    if (n < 0)
+                        return appIn.position() > 0 ? drain(dst) : -1;
+
+                    if (n == 0)
+                        return 0;
+                    break;
+                case CLOSED:
+                    return appIn.position() > 0 ? drain(dst) : -1;
+                default:
+                    checkRenegotiation(result);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int write(final ByteBuffer src) throws IOException {
+        if (!handshaken && !handshake())
+            return 0;
+
+        if (!flush())
+            return 0;
+
+        int consumed = 0;
+
+        while (src.hasRemaining()) {
+            final SSLEngineResult result = wrap(src);
+
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+                throw new SSLException("TLS engine is closed");
+
+            consumed += result.bytesConsumed();
+            checkRenegotiation(result);
+
+            if (!flush())
+                break;
+        }
+
+        return consumed;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                engine.closeOutbound();
+
+                if (flush()) {
+                    wrap(EMPTY);
+                    flush();
+                }
+            }
+        } catch (final Exception ignore) {
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void checkRenegotiation(final SSLEngineResult result) {
+        final SSLEngineResult.HandshakeStatus hs = result.getHandshakeStatus();
+
+        if (hs != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING && hs != SSLEngineResult.HandshakeStatus.FINISHED)
+            handshaken = false;
+    }
+
+    private int drain(final ByteBuffer dst) {
+        appIn.flip();
+
+        final int n = Math.min(appIn.remaining(), dst.remaining());
+
+        if (n == appIn.remaining())
+            dst.put(appIn);
+        else {
+            final int limit = appIn.limit();
+            appIn.limit(appIn.position() + n);
+            dst.put(appIn);
+            appIn.limit(limit);
+        }
+
+        appIn.compact();
+
+        return n;
+    }
+
+    private SSLEngineResult wrap(final ByteBuffer src) throws SSLException {
+        while (true) {
+            netOut.clear();
+            final SSLEngineResult result = engine.wrap(src, netOut);
+            netOut.flip();
+
+            if (result.getStatus() != SSLEngineResult.Status.BUFFER_OVERFLOW)
+                return result;
+
+            netOut = ByteBuffer.allocate(netOut.capacity() + engine.getSession().getPacketBufferSize());
+            netOut.flip();
+        }
+    }
+
+    private SSLEngineResult unwrap() throws SSLException {
+        while (true) {
+            netIn.flip();
+            final SSLEngineResult result = engine.unwrap(netIn, appIn);
+            netIn.compact();
+
+            switch (result.getStatus()) {
+                case BUFFER_OVERFLOW:
+                    appIn = grow(appIn, engine.getSession().getApplicationBufferSize());
+                    break;
+                case BUFFER_UNDERFLOW:
+                    if (!netIn.hasRemaining())
+                        netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+                    return result;
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static ByteBuffer grow(final ByteBuffer buffer, final int by) {
+        final ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() + by);
+        buffer.flip();
+        bigger.put(buffer);
+
+        return bigger;
+    }
+}
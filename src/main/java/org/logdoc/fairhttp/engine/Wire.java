@@ -0,0 +1,35 @@
+package org.logdoc.fairhttp.engine;
+
+import java.io.IOException;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 11:02
+ * fairhttp ☭ sweat and blood
+ *
+ * Non-blocking byte pipe over a socket channel: zero from read/write means "no progress now, wait for interestOps()"
+ */
+interface Wire extends ByteChannel {
+    SocketChannel channel();
+
+    /**
+     * @param wanted operation the caller is going to wait for
+     * @return selection ops which actually unblock the wire, tls may need to write while the caller wants to read
+     */
+    int interestOps(int wanted);
+
+    /**
+     * @return true when the wire has nothing buffered for the socket
+     */
+    boolean flush() throws IOException;
+
+    default boolean secure() {
+        return false;
+    }
+
+    default String applicationProtocol() {
+        return null;
+    }
+}
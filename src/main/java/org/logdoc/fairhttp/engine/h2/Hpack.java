@@ -0,0 +1,389 @@
+package org.logdoc.fairhttp.engine.h2;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 10:40
+ * fairhttp ☭ sweat and blood
+ *
+ * HPACK (RFC 7541). One encoder and one decoder per connection, each owning its dynamic table:
+ * the encoder is used under the connection write lock, the decoder only from the reader thread.
+ */
+final class Hpack {
+    static final int DEFAULT_TABLE_SIZE = 4096;
+
+    private static final String[][] STATIC = {
+            {":authority", ""},
+            {":method", "GET"},
+            {":method", "POST"},
+            {":path", "/"},
+            {":path", "/index.html"},
+            {":scheme", "http"},
+            {":scheme", "https"},
+            {":status", "200"},
+            {":status", "204"},
+            {":status", "206"},
+            {":status", "304"},
+            {":status", "400"},
+            {":status", "404"},
+            {":status", "500"},
+            {"accept-charset", ""},
+            {"accept-encoding", "gzip, deflate"},
+            {"accept-language", ""},
+            {"accept-ranges", ""},
+            {"accept", ""},
+            {"access-control-allow-origin", ""},
+            {"age", ""},
+            {"allow", ""},
+            {"authorization", ""},
+            {"cache-control", ""},
+            {"content-disposition", ""},
+            {"content-encoding", ""},
+            {"content-language", ""},
+            {"content-length", ""},
+            {"content-location", ""},
+            {"content-range", ""},
+            {"content-type", ""},
+            {"cookie", ""},
+            {"date", ""},
+            {"etag", ""},
+            {"expect", ""},
+            {"expires", ""},
+            {"from", ""},
+            {"host", ""},
+            {"if-match", ""},
+            {"if-modified-since", ""},
+            {"if-none-match", ""},
+            {"if-range", ""},
+            {"if-unmodified-since", ""},
+            {"last-modified", ""},
+            {"link", ""},
+            {"location", ""},
+            {"max-forwards", ""},
+            {"proxy-authenticate", ""},
+            {"proxy-authorization", ""},
+            {"range", ""},
+            {"referer", ""},
+            {"refresh", ""},
+            {"retry-after", ""},
+            {"server", ""},
+            {"set-cookie", ""},
+            {"strict-transport-security", ""},
+            {"transfer-encoding", ""},
+            {"user-agent", ""},
+            {"vary", ""},
+            {"via", ""},
+            {"www-authenticate", ""}
+    };
+
+    private static final Map<String, Integer> staticNames = new HashMap<>(), staticPairs = new HashMap<>();
+
+    static {
+        for (int i = STATIC.length; i > 0; i--) {
+            staticNames.put(STATIC[i - 1][0], i);
+            staticPairs.put(STATIC[i - 1][0] + '\n' + STATIC[i - 1][1], i);
+        }
+    }
+
+    private Hpack() {
+    }
+
+    static final class Encoder {
+        private final Table table = new Table(DEFAULT_TABLE_SIZE);
+        private int pendingUpdate = -1;
+
+        /**
+         * Peer announced SETTINGS_HEADER_TABLE_SIZE, we never use more than the default
+         */
+        void capacity(final int peerLimit) {
+            final int to = Math.min(peerLimit, DEFAULT_TABLE_SIZE);
+
+            if (to != table.capacity) {
+                table.capacity(to);
+                pendingUpdate = pendingUpdate == -1 ? to : Math.min(pendingUpdate, to);
+            }
+        }
+
+        /**
+         * Must be called at the start of every header block
+         */
+        void begin(final ByteArrayOutputStream out) {
+            if (pendingUpdate != -1) {
+                if (pendingUpdate < table.capacity)
+                    integer(out, 0x20, 5, pendingUpdate);
+
+                integer(out, 0x20, 5, table.capacity);
+                pendingUpdate = -1;
+            }
+        }
+
+        void header(final String name, final String value, final ByteArrayOutputStream out) {
+            final Integer pair = staticPairs.get(name + '\n' + value);
+
+            if (pair != null) {
+                integer(out, 0x80, 7, pair);
+                return;
+            }
+
+            final int dynamic = table.find(name, value);
+
+            if (dynamic > 0) {
+                integer(out, 0x80, 7, STATIC.length + dynamic);
+                return;
+            }
+
+            final Integer staticName = staticNames.get(name);
+            final int nameIndex = staticName != null ? staticName : dynamic < 0 ? STATIC.length - dynamic : 0;
+            final int size = Table.size(name, value);
+
+            if (name.equals("authorization") || name.equals("proxy-authorization") || (name.equals("cookie") && value.length() < 20))
+                literal(out, 0x10, 4, nameIndex, name, value);
+            else if (size <= table.capacity / 2) {
+                literal(out, 0x40, 6, nameIndex, name, value);
+                table.add(name, value);
+            } else
+                literal(out, 0x00, 4, nameIndex, name, value);
+        }
+
+        private static void literal(final ByteArrayOutputStream out, final int flags, final int prefix, final int nameIndex, final String name, final String value) {
+            integer(out, flags, prefix, nameIndex);
+
+            if (nameIndex == 0)
+                string(out, name);
+
+            string(out, value);
+        }
+
+        private static void string(final ByteArrayOutputStream out, final String s) {
+            final byte[] raw = s.getBytes(StandardCharsets.ISO_8859_1);
+            final int huffman = Huffman.length(raw);
+
+            if (huffman < raw.length) {
+                integer(out, 0x80, 7, huffman);
+                Huffman.encode(raw, out);
+            } else {
+                integer(out, 0x00, 7, raw.length);
+                out.write(raw, 0, raw.length);
+            }
+        }
+
+        private static void integer(final ByteArrayOutputStream out, final int flags, final int prefix, int value) {
+            final int max = (1 << prefix) - 1;
+
+            if (value < max) {
+                out.write(flags | value);
+                return;
+            }
+
+            out.write(flags | max);
+            value -= max;
+
+            while (value >= 0x80) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            out.write(value);
+        }
+    }
+
+    static final class Decoder {
+        private final Table table;
+        private final int maxCapacity;
+
+        Decoder(final int maxCapacity) {
+            this.maxCapacity = maxCapacity;
+            table = new Table(maxCapacity);
+        }
+
+        void decode(final byte[] block, final int length, final BiConsumer<String, String> sink) throws ProtocolException {
+            final int[] pos = {0};
+            boolean headers = false;
+
+            while (pos[0] < length) {
+                final int b = block[pos[0]] & 0xff;
+
+                if ((b & 0x80) != 0) {
+                    final int index = integer(block, length, pos, 7);
+                    sink.accept(name(index), value(index));
+                    headers = true;
+                } else if ((b & 0xe0) == 0x20) {
+                    if (headers)
+                        throw new ProtocolException("HPACK: table size update after header field");
+
+                    final int size = integer(block, length, pos, 5);
+
+                    if (size > maxCapacity)
+                        throw new ProtocolException("HPACK: table size update " + size + " exceeds " + maxCapacity);
+
+                    table.capacity(size);
+                } else {
+                    final boolean indexing = (b & 0xc0) == 0x40;
+                    final int nameIndex = integer(block, length, pos, indexing ? 6 : 4);
+                    final String name = nameIndex == 0 ? string(block, length, pos) : name(nameIndex);
+                    final String value = string(block, length, pos);
+
+                    if (indexing)
+                        table.add(name, value);
+
+                    sink.accept(name, value);
+                    headers = true;
+                }
+            }
+        }
+
+        private String name(final int index) throws ProtocolException {
+            if (index > 0 && index <= STATIC.length)
+                return STATIC[index - 1][0];
+
+            return entry(index).name;
+        }
+
+        private String value(final int index) throws ProtocolException {
+            if (index > 0 && index <= STATIC.length)
+                return STATIC[index - 1][1];
+
+            return entry(index).value;
+        }
+
+        private Table.Entry entry(final int index) throws ProtocolException {
+            if (index <= STATIC.length || index - STATIC.length > table.count)
+                throw new ProtocolException("HPACK: invalid index " + index);
+
+            return table.get(index - STATIC.length);
+        }
+
+        private static String string(final byte[] block, final int length, final int[] pos) throws ProtocolException {
+            if (pos[0] >= length)
+                throw new ProtocolException("HPACK: truncated string");
+
+            final boolean huffman = (block[pos[0]] & 0x80) != 0;
+            final int size = integer(block, length, pos, 7);
+
+            if (size > length - pos[0])
+                throw new ProtocolException("HPACK: string exceeds header block");
+
+            final int at = pos[0];
+            pos[0] += size;
+
+            return huffman
+                    ? new String(Huffman.decode(block, at, size), StandardCharsets.ISO_8859_1)
+                    : new String(block, at, size, StandardCharsets.ISO_8859_1);
+        }
+
+        private static int integer(final byte[] block, final int length, final int[] pos, final int prefix) throws ProtocolException {
+            final int max = (1 << prefix) - 1;
+            int value = block[pos[0]++] & max;
+
+            if (value < max)
+                return value;
+
+            for (int shift = 0; ; shift += 7) {
+                if (pos[0] >= length || shift > 21)
+                    throw new ProtocolException("HPACK: invalid integer");
+
+                final int b = block[pos[0]++] & 0xff;
+                value += (b & 0x7f) << shift;
+
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * Dynamic table as a ring, index 1 is the newest entry
+     */
+    static final class Table {
+        private Entry[] ring = new Entry[16];
+        private int tail, count, size, capacity;
+
+        Table(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        static int size(final String name, final String value) {
+            return 32 + name.length() + value.length();
+        }
+
+        Entry get(final int index) {
+            return ring[(tail - index + 1) & (ring.length - 1)];
+        }
+
+        /**
+         * @return index of the exact pair, minus index of the first name match, or 0
+         */
+        int find(final String name, final String value) {
+            int byName = 0;
+
+            for (int i = 1; i <= count; i++) {
+                final Entry e = get(i);
+
+                if (e.name.equals(name)) {
+                    if (e.value.equals(value))
+                        return i;
+
+                    if (byName == 0)
+                        byName = -i;
+                }
+            }
+
+            return byName;
+        }
+
+        void add(final String name, final String value) {
+            final int entry = size(name, value);
+
+            if (entry > capacity) {
+                evict(0);
+                return;
+            }
+
+            evict(capacity - entry);
+
+            if (count == ring.length) {
+                final Entry[] bigger = new Entry[ring.length * 2];
+
+                for (int i = count; i > 0; i--)
+                    bigger[count - i] = get(i);
+
+                ring = bigger;
+                tail = count - 1;
+            }
+
+            tail = (tail + 1) & (ring.length - 1);
+            ring[tail] = new Entry(name, value);
+            count++;
+            size += entry;
+        }
+
+        void capacity(final int capacity) {
+            this.capacity = capacity;
+            evict(capacity);
+        }
+
+        private void evict(final int limit) {
+            while (size > limit && count > 0) {
+                final int oldest = (tail - count + 1) & (ring.length - 1);
+                size -= size(ring[oldest].name, ring[oldest].value);
+                ring[oldest] = null;
+                count--;
+            }
+        }
+
+        static final class Entry {
+            final String name, value;
+
+            private Entry(final String name, final String value) {
+                this.name = name;
+                this.value = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,885 @@
+package org.logdoc.fairhttp.engine.h2;
+
+import org.logdoc.fairhttp.engine.Connection;
+import org.logdoc.fairhttp.engine.Route;
+import org.logdoc.fairhttp.helpers.Threads;
+import org.logdoc.fairhttp.transport.BodySource;
+import org.logdoc.fairhttp.transport.RequestHead;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 12:40
+ * fairhttp ☭ sweat and blood
+ *
+ * Multiplexed h2 session over one socket (RFC 9113). A daemon reader thread owns the inbound side and the HPACK decoder,
+ * callers write frames under the write lock. Flow control windows are guarded by the connection lock, which is never held
+ * while taking the write lock or a stream lock. Plain locks rather than monitors, so waiting virtual threads unmount.
+ */
+public final class Http2Connection implements AutoCloseable {
+    static final int DATA = 0, HEADERS = 1, PRIORITY = 2, RST_STREAM = 3, SETTINGS = 4, PUSH_PROMISE = 5, PING = 6, GOAWAY = 7, WINDOW_UPDATE = 8, CONTINUATION = 9;
+    static final int END_STREAM = 0x1, ACK = 0x1, END_HEADERS = 0x4, PADDED = 0x8, PRIORITY_FLAG = 0x20;
+    static final int NO_ERROR = 0, PROTOCOL_ERROR = 1, FLOW_CONTROL_ERROR = 3, FRAME_SIZE_ERROR = 6, REFUSED_STREAM = 7, CANCEL = 8, COMPRESSION_ERROR = 9;
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII), EMPTY = new byte[0];
+    private static final int MAX_HEADER_BLOCK = 1024 * 1024;
+    private static final Set<String> connectionHeaders = new HashSet<>(Arrays.asList("connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade", "host", "content-length"));
+
+    public final Route route;
+
+    private final Connection connection;
+    private final InputStream in;
+    private final OutputStream out;
+    private final ReentrantLock writeLock = new ReentrantLock(), lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<>();
+    private final Hpack.Encoder encoder = new Hpack.Encoder();
+    private final Hpack.Decoder decoder;
+    private final int streamWindow, connectionWindow, maxFrameSize, maxStreams;
+
+    // guarded by this
+    private long sendWindow = Http2Settings.DEFAULT_WINDOW;
+    private int peerInitialWindow = Http2Settings.DEFAULT_WINDOW, peerMaxStreams = Integer.MAX_VALUE, active, nextStreamId = 1, received;
+
+    private volatile int peerMaxFrameSize = Http2Settings.DEFAULT_FRAME_SIZE;
+    private volatile boolean goingAway;
+    private volatile IOException failure;
+    private volatile long lastActive = System.currentTimeMillis();
+
+    private Http2Connection(final Connection connection, final Http2Settings settings) {
+        this.connection = connection;
+        this.route = connection.route;
+
+        in = connection.input();
+        out = connection.output();
+        streamWindow = settings.streamWindow();
+        connectionWindow = settings.connectionWindow();
+        maxFrameSize = settings.maxFrameSize();
+        maxStreams = settings.maxConcurrentStreams();
+        decoder = new Hpack.Decoder(settings.headerTableSize());
+    }
+
+    /**
+     * Sends the client preface and starts the reader, the peer SETTINGS are applied as they arrive
+     */
+    public static Http2Connection start(final Connection connection, final Http2Settings settings) throws IOException {
+        final Http2Connection h2 = new Http2Connection(connection, settings);
+
+        final byte[] local = new byte[6 * 4];
+        int at = setting(local, 0, 0x1, settings.headerTableSize());
+        at = setting(local, at, 0x2, 0);
+        at = setting(local, at, 0x4, h2.streamWindow);
+        at = setting(local, at, 0x5, h2.maxFrameSize);
+
+        try {
+            h2.writeLock.lock();
+            try {
+                h2.out.write(PREFACE);
+                h2.frame(SETTINGS, 0, 0, local, 0, at);
+
+                if (h2.connectionWindow > Http2Settings.DEFAULT_WINDOW)
+                    h2.windowUpdate(0, h2.connectionWindow - Http2Settings.DEFAULT_WINDOW);
+
+                h2.out.flush();
+            } finally {
+                h2.writeLock.unlock();
+            }
+        } catch (final IOException e) {
+            connection.close();
+            throw e;
+        }
+
+        connection.timeout(0);
+
+        Threads.start("fairhttp-h2-" + connection.route.host + ":" + connection.route.port, h2::read);
+
+        return h2;
+    }
+
+    /**
+     * @return false once the connection is failed or draining after GOAWAY, new exchanges need another connection
+     */
+    public boolean usable() {
+        return failure == null && !goingAway && connection.isOpen();
+    }
+
+    public int active() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Sends request head and body, then waits for the response head. Body is read from the returned stream.
+     *
+     * @throws RefusedStreamException the peer did not process the request, it is safe to retry elsewhere
+     */
+    public Http2Stream exchange(final RequestHead request, final BodySource body) throws IOException {
+        final long length = body.length();
+        final List<String[]> fields = fields(request, length);
+        final Http2Stream stream = open(request.timeout);
+
+        try {
+            final ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+
+            writeLock.lock();
+            try {
+                lock.lock();
+                try {
+                    if (!usable() || nextStreamId < 0)
+                        throw new RefusedStreamException("Connection is closing: " + route);
+
+                    stream.id = nextStreamId;
+                    stream.sendWindow = peerInitialWindow;
+                    nextStreamId += 2;
+                } finally {
+                    lock.unlock();
+                }
+
+                streams.put(stream.id, stream);
+
+                encoder.begin(block);
+                for (final String[] f : fields)
+                    encoder.header(f[0], f[1], block);
+
+                headers(stream.id, block.toByteArray(), length == 0);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+
+            if (length != 0) {
+                final DataOut data = new DataOut(stream);
+                body.writeTo(data);
+                data.finish();
+                stream.head.written = data.written;
+            }
+
+            stream.head.writtenAt = System.currentTimeMillis();
+            stream.head.handshake = connection.handshakeTime();
+            stream.requestDone();
+            stream.awaitHead();
+
+            return stream;
+        } catch (final IOException | RuntimeException e) {
+            stream.close();
+
+            if (e instanceof IOException && !(e instanceof RefusedStreamException) && stream.error() instanceof RefusedStreamException)
+                throw stream.error();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Graceful shutdown: GOAWAY now, socket is closed when the last active stream ends
+     */
+    public void shutdown() {
+        goingAway = true;
+
+        try {
+            goAway(NO_ERROR);
+        } catch (final IOException ignore) {
+        }
+
+        if (active() == 0)
+            close();
+    }
+
+    @Override
+    public void close() {
+        fail(new IOException("Connection is closed: " + route));
+    }
+
+    void cancel(final Http2Stream stream) {
+        reset(stream.id, CANCEL);
+        release(stream);
+    }
+
+    private void reset(final int id, final int code) {
+        if (id > 0 && failure == null)
+            try {
+                writeLock.lock();
+                try {
+                    frame(RST_STREAM, 0, id, int32(code), 0, 4);
+                    out.flush();
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (final IOException ignore) {
+            }
+    }
+
+    void release(final Http2Stream stream) {
+        if (!stream.releaseOnce())
+            return;
+
+        final boolean drained;
+
+        lock.lock();
+        try {
+            if (stream.id > 0)
+                streams.remove(stream.id);
+
+            active--;
+            lastActive = System.currentTimeMillis();
+            drained = goingAway && active == 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (drained)
+            close();
+    }
+
+    /**
+     * Caller read n bytes of the stream body, or the bytes will never be read when stream is null: hand the receive windows
+     * back once half of them is used
+     */
+    void consumed(final Http2Stream stream, final int n) {
+        final int update = stream == null ? 0 : unacked(stream, n), credit;
+
+        lock.lock();
+        try {
+            received += n;
+
+            if (received < connectionWindow / 2)
+                credit = 0;
+            else {
+                credit = received;
+                received = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (update == 0 && credit == 0)
+            return;
+
+        try {
+            writeLock.lock();
+            try {
+                if (credit > 0)
+                    windowUpdate(0, credit);
+
+                if (update > 0)
+                    windowUpdate(stream.id, update);
+
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (final IOException ignore) {
+        }
+    }
+
+    private int unacked(final Http2Stream stream, final int n) {
+        stream.lock.lock();
+        try {
+            stream.unacked += n;
+
+            if (stream.unacked < streamWindow / 2 || !streams.containsKey(stream.id))
+                return 0;
+
+            final int update = stream.unacked;
+            stream.unacked = 0;
+
+            return update;
+        } finally {
+            stream.lock.unlock();
+        }
+    }
+
+    private Http2Stream open(final int timeout) throws IOException {
+        final long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+
+        lock.lock();
+        try {
+            while (active >= Math.min(maxStreams, peerMaxStreams)) {
+                if (!usable())
+                    throw new RefusedStreamException("Connection is closing: " + route);
+
+                final long left = deadline - System.currentTimeMillis();
+                if (left <= 0)
+                    throw new SocketTimeoutException("No free h2 stream within " + timeout + " ms, " + active + " active: " + route);
+
+                waitOn(deadline == Long.MAX_VALUE ? 0 : left);
+            }
+
+            active++;
+        } finally {
+            lock.unlock();
+        }
+
+        return new Http2Stream(this, timeout);
+    }
+
+    /**
+     * Blocks until both connection and stream send windows allow at least one byte
+     */
+    private int reserve(final Http2Stream stream, final int wanted) throws IOException {
+        final long deadline = stream.timeout > 0 ? System.currentTimeMillis() + stream.timeout : Long.MAX_VALUE;
+
+        lock.lock();
+        try {
+            while (true) {
+                if (stream.error() != null)
+                    throw stream.error();
+
+                final int n = (int) Math.min(Math.min(wanted, peerMaxFrameSize), Math.min(sendWindow, stream.sendWindow));
+
+                if (n > 0) {
+                    sendWindow -= n;
+                    stream.sendWindow -= n;
+
+                    return n;
+                }
+
+                final long left = deadline - System.currentTimeMillis();
+                if (left <= 0)
+                    throw new SocketTimeoutException("Write timed out after " + stream.timeout + " ms waiting for h2 flow control window: " + route);
+
+                waitOn(deadline == Long.MAX_VALUE ? 0 : left);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitOn(final long ms) throws InterruptedIOException {
+        try {
+            if (ms == 0)
+                changed.await();
+            else
+                changed.await(ms, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on h2 connection " + route);
+        }
+    }
+
+    private List<String[]> fields(final RequestHead request, final long length) {
+        final List<String[]> fields = new ArrayList<>(request.headers.fields() + 6);
+        final String host = request.header("Host");
+
+        fields.add(new String[]{":method", request.method});
+        fields.add(new String[]{":scheme", route.secure ? "https" : "http"});
+        fields.add(new String[]{":authority", isEmpty(host) ? route.authority() : host});
+        fields.add(new String[]{":path", request.method.equals("OPTIONS") && "*".equals(request.destination.descriptor()) ? "*" : request.destination.descriptor()});
+
+        if (request.header("User-Agent") == null)
+            fields.add(new String[]{"user-agent", "FairHttp"});
+
+        request.headers.forEachField((k, v) -> {
+            if (isEmpty(k) || isEmpty(v))
+                return;
+
+            final String name = k.trim().toLowerCase();
+
+            if (connectionHeaders.contains(name) || (name.equals("te") && !v.trim().equalsIgnoreCase("trailers")))
+                return;
+
+            if (v.indexOf('\r') != -1 || v.indexOf('\n') != -1 || name.indexOf('\r') != -1 || name.indexOf('\n') != -1)
+                throw new IllegalArgumentException("Illegal character(s) in header " + k);
+
+            fields.add(new String[]{name, v});
+        });
+
+        if (length > 0 || (length == 0 && (request.method.equals("POST") || request.method.equals("PUT") || request.method.equals("PATCH"))))
+            fields.add(new String[]{"content-length", String.valueOf(length)});
+
+        return fields;
+    }
+
+    private void read() {
+        final byte[] head = new byte[9];
+        ByteArrayOutputStream block = null;
+        int blockStream = 0, blockFlags = 0, promised = 0;
+
+        try {
+            while (true) {
+                readFully(head, 9);
+
+                final int length = ((head[0] & 0xff) << 16) | ((head[1] & 0xff) << 8) | (head[2] & 0xff);
+                final int type = head[3] & 0xff, flags = head[4] & 0xff, id = int32(head, 5) & 0x7fffffff;
+
+                if (length > maxFrameSize)
+                    throw new ConnectionError(FRAME_SIZE_ERROR, "Frame of " + length + " bytes exceeds " + maxFrameSize);
+
+                final byte[] payload = length == 0 ? EMPTY : new byte[length];
+                readFully(payload, length);
+
+                if (block != null && (type != CONTINUATION || id != blockStream))
+                    throw new ConnectionError(PROTOCOL_ERROR, "Header block of stream " + blockStream + " is interrupted by frame type " + type);
+
+                switch (type) {
+                    case DATA:
+                        onData(id, flags, payload);
+                        break;
+                    case HEADERS:
+                    case PUSH_PROMISE:
+                        if (id == 0)
+                            throw new ConnectionError(PROTOCOL_ERROR, "Header block on stream 0");
+
+                        int off = 0, end = length;
+
+                        if ((flags & PADDED) != 0)
+                            end -= payload.length > 0 ? payload[off++] & 0xff : 1;
+
+                        if (type == HEADERS && (flags & PRIORITY_FLAG) != 0)
+                            off += 5;
+
+                        if (type == PUSH_PROMISE) {
+                            promised = end - off >= 4 ? int32(payload, off) & 0x7fffffff : 0;
+                            off += 4;
+                        } else
+                            promised = 0;
+
+                        if (off > end)
+                            throw new ConnectionError(PROTOCOL_ERROR, "Invalid padding in frame type " + type);
+
+                        block = new ByteArrayOutputStream(Math.max(64, end - off));
+                        block.write(payload, off, end - off);
+                        blockStream = id;
+                        blockFlags = type == HEADERS ? flags : 0;
+
+                        if ((flags & END_HEADERS) != 0) {
+                            onHeaders(blockStream, blockFlags, block, promised);
+                            block = null;
+                        }
+                        break;
+                    case CONTINUATION:
+                        if (block == null)
+                            throw new ConnectionError(PROTOCOL_ERROR, "Unexpected CONTINUATION on stream " + id);
+
+                        if (block.size() + length > MAX_HEADER_BLOCK)
+                            throw new ConnectionError(PROTOCOL_ERROR, "Header block exceeds " + MAX_HEADER_BLOCK + " bytes");
+
+                        block.write(payload, 0, length);
+
+                        if ((flags & END_HEADERS) != 0) {
+                            onHeaders(blockStream, blockFlags, block, promised);
+                            block = null;
+                        }
+                        break;
+                    case RST_STREAM:
+                        if (length != 4)
+                            throw new ConnectionError(FRAME_SIZE_ERROR, "RST_STREAM of " + length + " bytes");
+
+                        final Http2Stream reset = streams.get(id);
+
+                        if (reset != null) {
+                            final int code = int32(payload, 0);
+
+                            reset.fail(code == REFUSED_STREAM
+                                    ? new RefusedStreamException("Stream " + id + " refused: " + route)
+                                    : new IOException("Stream " + id + " reset by peer, error code " + code + ": " + route));
+                        }
+                        break;
+                    case SETTINGS:
+                        if ((flags & ACK) == 0)
+                            onSettings(payload);
+                        break;
+                    case PING:
+                        if ((flags & ACK) == 0) {
+                            writeLock.lock();
+                            try {
+                                frame(PING, ACK, 0, payload, 0, length);
+                                out.flush();
+                            } finally {
+                                writeLock.unlock();
+                            }
+                        }
+                        break;
+                    case GOAWAY:
+                        if (length < 8)
+                            throw new ConnectionError(FRAME_SIZE_ERROR, "GOAWAY of " + length + " bytes");
+
+                        onGoAway(int32(payload, 0) & 0x7fffffff, int32(payload, 4));
+                        break;
+                    case WINDOW_UPDATE:
+                        if (length != 4)
+                            throw new ConnectionError(FRAME_SIZE_ERROR, "WINDOW_UPDATE of " + length + " bytes");
+
+                        onWindowUpdate(id, int32(payload, 0) & 0x7fffffff);
+                        break;
+                    default: // PRIORITY and unknown extensions
+                }
+            }
+        } catch (final ConnectionError e) {
+            try {
+                goAway(e.code);
+            } catch (final IOException ignore) {
+            }
+
+            fail(e);
+        } catch (final ProtocolException e) {
+            try {
+                goAway(PROTOCOL_ERROR);
+            } catch (final IOException ignore) {
+            }
+
+            fail(e);
+        } catch (final IOException e) {
+            fail(e);
+        } catch (final RuntimeException e) {
+            fail(new IOException("h2 reader failed: " + e.getMessage(), e));
+        }
+    }
+
+    private void onData(final int id, final int flags, final byte[] payload) throws IOException {
+        if (id == 0)
+            throw new ConnectionError(PROTOCOL_ERROR, "DATA on stream 0");
+
+        int off = 0, end = payload.length;
+
+        if ((flags & PADDED) != 0) {
+            end -= payload.length > 0 ? payload[off++] & 0xff : 1;
+
+            if (end < off)
+                throw new ConnectionError(PROTOCOL_ERROR, "Invalid DATA padding");
+        }
+
+        final Http2Stream stream = streams.get(id);
+
+        if (stream == null) { // nobody reads it, the connection window is credited right away
+            consumed(null, payload.length);
+            return;
+        }
+
+        final int unread = payload.length - (stream.data(payload, off, end - off, (flags & END_STREAM) != 0) ? end - off : 0);
+
+        if (unread > 0)
+            consumed(stream, unread);
+    }
+
+    private void onHeaders(final int id, final int flags, final ByteArrayOutputStream block, final int promised) throws IOException {
+        final List<String[]> fields = new ArrayList<>(16);
+
+        try {
+            decoder.decode(block.toByteArray(), block.size(), (k, v) -> fields.add(new String[]{k, v}));
+        } catch (final ProtocolException e) {
+            throw new ConnectionError(COMPRESSION_ERROR, e.getMessage());
+        }
+
+        if (promised > 0) {
+            writeLock.lock();
+            try {
+                frame(RST_STREAM, 0, promised, int32(REFUSED_STREAM), 0, 4);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+
+            return;
+        }
+
+        final Http2Stream stream = streams.get(id);
+
+        if (stream != null)
+            stream.headers(fields, (flags & END_STREAM) != 0);
+    }
+
+    private void onSettings(final byte[] payload) throws IOException {
+        if (payload.length % 6 != 0)
+            throw new ConnectionError(FRAME_SIZE_ERROR, "SETTINGS of " + payload.length + " bytes");
+
+        writeLock.lock();
+        try {
+            for (int i = 0; i < payload.length; i += 6) {
+                final int key = ((payload[i] & 0xff) << 8) | (payload[i + 1] & 0xff);
+                final int value = int32(payload, i + 2);
+
+                switch (key) {
+                    case 0x1:
+                        encoder.capacity(value);
+                        break;
+                    case 0x3:
+                        lock.lock();
+                        try {
+                            peerMaxStreams = value;
+                            changed.signalAll();
+                        } finally {
+                            lock.unlock();
+                        }
+                        break;
+                    case 0x4:
+                        if (value < 0)
+                            throw new ConnectionError(FLOW_CONTROL_ERROR, "Initial window " + (value & 0xffffffffL) + " exceeds 2^31-1");
+
+                        lock.lock();
+                        try {
+                            final int delta = value - peerInitialWindow;
+
+                            for (final Http2Stream s : streams.values())
+                                if (s.sendWindow + delta > Http2Settings.MAX_WINDOW)
+                                    throw new ConnectionError(FLOW_CONTROL_ERROR, "Initial window " + value + " overflows window of stream " + s.id);
+
+                            peerInitialWindow = value;
+                            streams.values().forEach(s -> s.sendWindow += delta);
+                            changed.signalAll();
+                        } finally {
+                            lock.unlock();
+                        }
+                        break;
+                    case 0x5:
+                        if (value < Http2Settings.DEFAULT_FRAME_SIZE || value > 0xffffff)
+                            throw new ConnectionError(PROTOCOL_ERROR, "Invalid max frame size " + value);
+
+                        peerMaxFrameSize = value;
+                        break;
+                    default:
+                }
+            }
+
+            frame(SETTINGS, ACK, 0, EMPTY, 0, 0);
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void onGoAway(final int lastStreamId, final int code) {
+        goingAway = true;
+
+        streams.values().stream()
+                .filter(s -> s.id > lastStreamId)
+                .forEach(s -> s.fail(new RefusedStreamException("Stream " + s.id + " not processed, GOAWAY code " + code + ": " + route)));
+
+        if (active() == 0)
+            close();
+    }
+
+    private void onWindowUpdate(final int id, final int increment) throws IOException {
+        if (increment == 0)
+            throw new ConnectionError(PROTOCOL_ERROR, "Zero window increment on stream " + id);
+
+        final Http2Stream overflown;
+
+        lock.lock();
+        try {
+            if (id == 0) {
+                if ((sendWindow += increment) > Http2Settings.MAX_WINDOW)
+                    throw new ConnectionError(FLOW_CONTROL_ERROR, "Connection window overflow");
+
+                overflown = null;
+            } else {
+                final Http2Stream stream = streams.get(id);
+
+                if (stream != null && stream.sendWindow + increment > Http2Settings.MAX_WINDOW)
+                    overflown = stream;
+                else {
+                    overflown = null;
+
+                    if (stream != null)
+                        stream.sendWindow += increment;
+                }
+            }
+
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (overflown != null) { // stream error only, the connection goes on
+            reset(id, FLOW_CONTROL_ERROR);
+            overflown.fail(new IOException("Stream " + id + " window overflow, reset with FLOW_CONTROL_ERROR: " + route));
+        }
+    }
+
+    private void fail(final IOException e) {
+        lock.lock();
+        try {
+            if (failure != null)
+                return;
+
+            failure = e;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        connection.close();
+        streams.values().forEach(s -> s.fail(e));
+    }
+
+    private void headers(final int id, final byte[] block, final boolean endStream) throws IOException {
+        final int max = peerMaxFrameSize;
+        int off = 0;
+
+        do {
+            final int n = Math.min(max, block.length - off);
+            final boolean last = off + n == block.length;
+
+            if (off == 0)
+                frame(HEADERS, (endStream ? END_STREAM : 0) | (last ? END_HEADERS : 0), id, block, off, n);
+            else
+                frame(CONTINUATION, last ? END_HEADERS : 0, id, block, off, n);
+
+            off += n;
+        } while (off < block.length);
+    }
+
+    private void goAway(final int code) throws IOException {
+        final byte[] payload = new byte[8]; // last stream id stays 0, we never accept peer-initiated streams
+        System.arraycopy(int32(code), 0, payload, 4, 4);
+
+        writeLock.lock();
+        try {
+            frame(GOAWAY, 0, 0, payload, 0, 8);
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void windowUpdate(final int id, final int increment) throws IOException {
+        frame(WINDOW_UPDATE, 0, id, int32(increment), 0, 4);
+    }
+
+    /**
+     * Caller holds the write lock
+     */
+    private void frame(final int type, final int flags, final int id, final byte[] payload, final int off, final int len) throws IOException {
+        final byte[] head = new byte[9];
+
+        head[0] = (byte) (len >>> 16);
+        head[1] = (byte) (len >>> 8);
+        head[2] = (byte) len;
+        head[3] = (byte) type;
+        head[4] = (byte) flags;
+        head[5] = (byte) (id >>> 24);
+        head[6] = (byte) (id >>> 16);
+        head[7] = (byte) (id >>> 8);
+        head[8] = (byte) id;
+
+        out.write(head, 0, 9);
+        out.write(payload, off, len);
+    }
+
+    private void readFully(final byte[] dst, final int len) throws IOException {
+        for (int off = 0, n; off < len; off += n)
+            if ((n = in.read(dst, off, len - off)) < 0)
+                throw new EOFException("h2 connection closed by peer: " + route);
+    }
+
+    private static int setting(final byte[] dst, final int at, final int key, final int value) {
+        dst[at] = (byte) (key >>> 8);
+        dst[at + 1] = (byte) key;
+        System.arraycopy(int32(value), 0, dst, at + 2, 4);
+
+        return at + 6;
+    }
+
+    private static byte[] int32(final int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static int int32(final byte[] src, final int at) {
+        return ((src[at] & 0xff) << 24) | ((src[at + 1] & 0xff) << 16) | ((src[at + 2] & 0xff) << 8) | (src[at + 3] & 0xff);
+    }
+
+    private final class DataOut extends OutputStream {
+        private final Http2Stream stream;
+        private final byte[] buffer = new byte[Http2Settings.DEFAULT_FRAME_SIZE];
+        private int buffered;
+        private long written;
+
+        private DataOut(final Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (buffered == buffer.length)
+                send(buffer, 0, buffered, false);
+
+            buffer[buffered++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len <= buffer.length - buffered) {
+                System.arraycopy(b, off, buffer, buffered, len);
+                buffered += len;
+                return;
+            }
+
+            send(buffer, 0, buffered, false);
+            send(b, off, len, false);
+        }
+
+        private void finish() throws IOException {
+            send(buffer, 0, buffered, true);
+        }
+
+        private void send(final byte[] b, int off, int len, final boolean endStream) throws IOException {
+            if (len == 0 && endStream) {
+                writeLock.lock();
+                try {
+                    frame(DATA, END_STREAM, stream.id, b, off, 0);
+                    out.flush();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+
+            while (len > 0) {
+                final int n = reserve(stream, len);
+
+                writeLock.lock();
+                try {
+                    frame(DATA, endStream && n == len ? END_STREAM : 0, stream.id, b, off, n);
+                    out.flush();
+                } finally {
+                    writeLock.unlock();
+                }
+
+                off += n;
+                len -= n;
+                written += n;
+            }
+
+            if (b == buffer)
+                buffered = 0;
+        }
+    }
+
+    private static final class ConnectionError extends ProtocolException {
+        private final int code;
+
+        private ConnectionError(final int code, final String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+}
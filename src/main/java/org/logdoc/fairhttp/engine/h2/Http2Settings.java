@@ -0,0 +1,99 @@
+package org.logdoc.fairhttp.engine.h2;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 11:30
+ * fairhttp ☭ sweat and blood
+ *
+ * Local side of the h2 connection: receive windows we announce and client policy. Read once when a connection starts.
+ */
+public final class Http2Settings {
+    static final int DEFAULT_WINDOW = 65535, DEFAULT_FRAME_SIZE = 16384, MAX_WINDOW = Integer.MAX_VALUE;
+
+    private volatile int streamWindow = 1024 * 1024, connectionWindow = 1024 * 1024 * 16, maxFrameSize = DEFAULT_FRAME_SIZE, headerTableSize = Hpack.DEFAULT_TABLE_SIZE;
+    private volatile int maxConcurrentStreams = 256;
+    private volatile long idleTimeout = 60_000;
+    private volatile boolean priorKnowledge;
+
+    /**
+     * @param bytes SETTINGS_INITIAL_WINDOW_SIZE: how much a single response may send ahead of our reads
+     */
+    public Http2Settings streamWindow(final int bytes) {
+        this.streamWindow = Math.min(MAX_WINDOW, Math.max(DEFAULT_WINDOW, bytes));
+
+        return this;
+    }
+
+    /**
+     * @param bytes receive window shared by all streams of a connection
+     */
+    public Http2Settings connectionWindow(final int bytes) {
+        this.connectionWindow = Math.min(MAX_WINDOW, Math.max(DEFAULT_WINDOW, bytes));
+
+        return this;
+    }
+
+    public Http2Settings maxFrameSize(final int bytes) {
+        this.maxFrameSize = Math.min(0xffffff, Math.max(DEFAULT_FRAME_SIZE, bytes));
+
+        return this;
+    }
+
+    public Http2Settings headerTableSize(final int bytes) {
+        this.headerTableSize = Math.max(0, bytes);
+
+        return this;
+    }
+
+    /**
+     * @param streams upper bound of streams we open over one connection, peer limit wins if lower
+     */
+    public Http2Settings maxConcurrentStreams(final int streams) {
+        this.maxConcurrentStreams = Math.max(1, streams);
+
+        return this;
+    }
+
+    public Http2Settings idleTimeout(final long idleTimeoutMs) {
+        this.idleTimeout = Math.max(1000, idleTimeoutMs);
+
+        return this;
+    }
+
+    /**
+     * @param priorKnowledge speak h2c to plain http routes without upgrade, for servers known to support it
+     */
+    public Http2Settings priorKnowledge(final boolean priorKnowledge) {
+        this.priorKnowledge = priorKnowledge;
+
+        return this;
+    }
+
+    public int streamWindow() {
+        return streamWindow;
+    }
+
+    public int connectionWindow() {
+        return connectionWindow;
+    }
+
+    public int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public int headerTableSize() {
+        return headerTableSize;
+    }
+
+    public int maxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public long idleTimeout() {
+        return idleTimeout;
+    }
+
+    public boolean priorKnowledge() {
+        return priorKnowledge;
+    }
+}
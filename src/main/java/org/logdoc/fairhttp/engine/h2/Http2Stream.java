@@ -0,0 +1,303 @@
+package org.logdoc.fairhttp.engine.h2;
+
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.logdoc.fairhttp.transport.TransportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 12:05
+ * fairhttp ☭ sweat and blood
+ *
+ * One request/response exchange over a shared h2 connection. Frames are pushed in by the connection reader,
+ * the body stream hands them out and returns stream and connection receive window to the peer as the caller consumes it.
+ */
+public final class Http2Stream implements TransportResponse {
+    final Http2Connection connection;
+    final ResponseHead head = new ResponseHead();
+    final int timeout;
+
+    int id;
+    long sendWindow; // guarded by connection
+    int unacked; // guarded by lock
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private final InputStream body = new Body();
+    private final Condition changed = lock.newCondition();
+    private volatile IOException error;
+    private boolean headed, ended, requestDone, released;
+
+    Http2Stream(final Http2Connection connection, final int timeout) {
+        this.connection = connection;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ResponseHead head() {
+        return head;
+    }
+
+    @Override
+    public InputStream body() {
+        return body;
+    }
+
+    /**
+     * Cancels the stream if the response was not read to its end
+     */
+    @Override
+    public void close() {
+        final boolean cancel;
+        int unread = 0;
+
+        lock.lock();
+        try {
+            cancel = !ended && error == null;
+
+            for (final ByteBuffer chunk : chunks)
+                unread += chunk.remaining();
+
+            chunks.clear();
+            ended = true;
+
+            if (error == null)
+                error = new IOException("Stream is closed");
+        } finally {
+            lock.unlock();
+        }
+
+        if (unread > 0)
+            connection.consumed(null, unread);
+
+        if (cancel)
+            connection.cancel(this);
+        else
+            connection.release(this);
+    }
+
+    void headers(final List<String[]> fields, final boolean endStream) throws ProtocolException {
+        lock.lock();
+        try {
+            headers0(fields, endStream);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void headers0(final List<String[]> fields, final boolean endStream) throws ProtocolException {
+        if (!headed) {
+            String status = null;
+
+            for (final String[] f : fields)
+                if (f[0].equals(":status"))
+                    status = f[1];
+                else if (!f[0].startsWith(":"))
+                    head.add(f[0], f[1]);
+
+            try {
+                head.code = Integer.parseInt(status);
+            } catch (final NumberFormatException e) {
+                throw new ProtocolException("Invalid :status " + status + " on stream " + id);
+            }
+
+            if (head.code >= 100 && head.code < 200) {
+                head.headers.clear();
+
+                if (!endStream)
+                    return;
+            }
+
+            head.version = "HTTP/2";
+            head.message = "";
+
+            final String cl = head.header("content-length");
+            try {
+                head.contentLength = cl == null ? -1 : Long.parseLong(cl.trim());
+            } catch (final NumberFormatException e) {
+                throw new ProtocolException("Invalid content-length " + cl + " on stream " + id);
+            }
+
+            head.chunked = head.contentLength < 0;
+            headed = true;
+        }
+
+        if (endStream)
+            end();
+
+        changed.signalAll();
+    }
+
+    /**
+     * @return false if the stream failed and the bytes were dropped
+     */
+    boolean data(final byte[] payload, final int off, final int len, final boolean endStream) {
+        lock.lock();
+        try {
+            final boolean kept = error == null;
+
+            if (len > 0 && kept)
+                chunks.addLast(ByteBuffer.wrap(payload, off, len));
+
+            if (endStream)
+                end();
+
+            changed.signalAll();
+
+            return kept;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void requestDone() {
+        lock.lock();
+        try {
+            requestDone = true;
+
+            if (ended)
+                connection.release(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void fail(final IOException e) {
+        lock.lock();
+        try {
+            if (error == null)
+                error = e;
+
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        connection.release(this);
+    }
+
+    IOException error() {
+        return error;
+    }
+
+    boolean releaseOnce() {
+        lock.lock();
+        try {
+            if (released)
+                return false;
+
+            return released = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitHead() throws IOException {
+        final long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+
+        lock.lock();
+        try {
+            while (!headed) {
+                if (error != null)
+                    throw error;
+
+                await(deadline, "response head");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void end() {
+        ended = true;
+
+        if (requestDone)
+            connection.release(this);
+    }
+
+    private void await(final long deadline, final String what) throws IOException {
+        final long left = deadline - System.currentTimeMillis();
+
+        if (left <= 0)
+            throw new SocketTimeoutException("Read timed out after " + timeout + " ms waiting for " + what + " on h2 stream " + id + ": " + connection.route);
+
+        try {
+            if (deadline == Long.MAX_VALUE)
+                changed.await();
+            else
+                changed.await(left, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + what);
+        }
+    }
+
+    private final class Body extends InputStream {
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0)
+                return 0;
+
+            final int n;
+
+            lock.lock();
+            try {
+                final long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+
+                while (chunks.isEmpty()) {
+                    if (ended && error == null)
+                        return -1;
+
+                    if (error != null)
+                        throw error;
+
+                    await(deadline, "data");
+                }
+
+                final ByteBuffer chunk = chunks.peekFirst();
+                n = Math.min(len, chunk.remaining());
+                chunk.get(b, off, n);
+
+                if (!chunk.hasRemaining())
+                    chunks.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+
+            connection.consumed(Http2Stream.this, n);
+
+            return n;
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                final ByteBuffer chunk = chunks.peekFirst();
+
+                return chunk == null ? 0 : chunk.remaining();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.logdoc.fairhttp.engine.h2;
+
+import java.io.IOException;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 20.10.2026 12:30
+ * fairhttp ☭ sweat and blood
+ *
+ * Request was not processed by the peer (REFUSED_STREAM or beyond GOAWAY last stream), safe to retry on another connection
+ */
+public final class RefusedStreamException extends IOException {
+    public RefusedStreamException(final String message) {
+        super(message);
+    }
+}
@@ -4,14 +4,19 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.logdoc.fairhttp.diag.CallData;
+import org.logdoc.fairhttp.structs.HeaderMap;
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -19,25 +24,111 @@ import java.util.Map;
  * 08.01.2023 19:03
  * fairhttp ☭ sweat and blood
  */
-public final class FairResponse {
+public final class FairResponse implements AutoCloseable {
     public int code;
     public String message;
     public byte[] body;
+    /**
+     * Set instead of body when the reply is streamed, closing it returns the connection to the pool
+     */
+    public InputStream stream;
+    /**
+     * Set instead of stream when the reply is published, reads follow the subscriber demand
+     */
+    public ReplyPublisher publisher;
+    /**
+     * Set instead of body when the buffered reply went past the spill threshold: read-only mapping of a deleted temp file
+     */
+    public ByteBuffer spilled;
 
-    public final Map<String, String> headers = new HashMap<>();
+    private final HeaderMap fields = new HeaderMap(0);
+    /**
+     * One entry per name, valued by its last field; headerMap() has every field as received
+     */
+    public final Map<String, String> headers = fields;
     public CallData callData;
+    /**
+     * Json codec of the client which made the call, a default mapper is created when null
+     */
+    public ObjectMapper mapper;
+
+    /**
+     * Same fields as headers, repeats included
+     */
+    public HeaderMap headerMap() {
+        return fields;
+    }
+
+    public ReadableByteChannel channel() {
+        return stream == null ? null : Channels.newChannel(stream);
+    }
+
+    @Override
+    public void close() {
+        if (publisher != null)
+            publisher.close();
+
+        if (stream != null)
+            try {
+                stream.close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                stream = null;
+            }
+    }
+
+    public long length() {
+        return body != null ? body.length : spilled != null ? spilled.capacity() : 0;
+    }
+
+    /**
+     * Buffered body, wherever it is kept
+     */
+    public InputStream asStream() {
+        if (body != null)
+            return new ByteArrayInputStream(body);
+
+        if (spilled == null)
+            return null;
+
+        final ByteBuffer src = spilled.duplicate();
+
+        return new InputStream() {
+            @Override
+            public int read() {
+                return src.hasRemaining() ? src.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) {
+                if (!src.hasRemaining())
+                    return len == 0 ? 0 : -1;
+
+                final int n = Math.min(len, src.remaining());
+                src.get(b, off, n);
+
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return src.remaining();
+            }
+        };
+    }
 
     public String asString() {
         if (body == null)
-            return null;
+            return spilled == null ? null : StandardCharsets.UTF_8.decode(spilled.duplicate()).toString();
 
         return new String(body, StandardCharsets.UTF_8);
     }
 
     public JsonNode asJson() {
-        if (body != null)
+        if (body != null || spilled != null)
             try {
-                return new ObjectMapper().readTree(body);
+                return (mapper != null ? mapper : new ObjectMapper()).readTree(asStream());
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -46,10 +137,10 @@ public final class FairResponse {
     }
 
     public Document asXml() {
-        if (body != null)
+        if (body != null || spilled != null)
             try {
                 return DocumentBuilderFactory.newInstance().newDocumentBuilder()
-                        .parse(new InputSource(new ByteArrayInputStream(body)));
+                        .parse(new InputSource(asStream()));
             } catch (final Exception e) {
                 throw new RuntimeException(e);
             }
@@ -58,13 +149,13 @@ public final class FairResponse {
     }
 
     public <T> T fromJson(final Class<T> cls) {
-        if (body == null)
+        if (body == null && spilled == null)
             return null;
 
-        final ObjectMapper m = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        final ObjectMapper m = mapper != null ? mapper : new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         try {
-            return m.treeToValue(m.readTree(body), cls);
+            return m.treeToValue(m.readTree(asStream()), cls);
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.logdoc.fairhttp.diag.CallData;
+import org.logdoc.fairhttp.helpers.BufferPool;
 import org.logdoc.fairhttp.helpers.FairErrorHandler;
+import org.logdoc.fairhttp.helpers.MemoryBudget;
 import org.logdoc.fairhttp.helpers.SocketConsumer;
 import org.logdoc.fairhttp.structs.SocketMessage;
 import org.logdoc.fairhttp.structs.websocket.Opcode;
@@ -23,6 +25,8 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
@@ -58,6 +62,7 @@ public class FairSocket implements Runnable {
     private InputStream is;
     private OutputStream os;
     private IExtension extension;
+    private MemoryBudget budget;
 
     {
         running = new AtomicBoolean(false);
@@ -169,18 +174,19 @@ public class FairSocket implements Runnable {
                     }
                 }
 
+                // payload escapes to the consumer, so it is owned, not pooled
                 final byte[] payload = new byte[payloadlength];
                 if (mask) {
                     byte[] maskskey = new byte[4];
                     for (int i = 0; i < maskskey.length; i++)
                         maskskey[i] = (byte) is.read();
 
-                    for (int i = 0; i < payloadlength; i++) {
-                        payload[i] = ((byte) (is.read() ^ maskskey[i % 4]));
-                    }
-                } else
+                    readFully(payload);
+
                     for (int i = 0; i < payloadlength; i++)
-                        payload[i] = ((byte) (is.read()));
+                        payload[i] ^= maskskey[i & 3];
+                } else
+                    readFully(payload);
 
                 frame.setPayload(payload);
 
@@ -216,6 +222,14 @@ public class FairSocket implements Runnable {
         this.errorHandler = errorHandler;
     }
 
+    /**
+     * @param budget queued frame payloads are reserved in it until written
+     */
+    public void init(final InputStream is, final OutputStream os, final SocketConsumer consumer, final IExtension extension, final FairErrorHandler errorHandler, final MemoryBudget budget) {
+        init(is, os, consumer, extension, errorHandler);
+        this.budget = budget;
+    }
+
     // private api
     private void send(final AFrame frame) {
         if (frame == null)
@@ -224,8 +238,22 @@ public class FairSocket implements Runnable {
         if (!frame.isValid())
             throw new IllegalStateException("Invalid frame");
 
-        if (!queue.add(frame))
+        final int size = frame.getPayloadData().length;
+
+        if (budget != null)
+            try {
+                budget.acquire(size);
+            } catch (final IOException e) {
+                errorHandler.exception("Cant send message: " + e.getMessage(), e, callData);
+                return;
+            }
+
+        if (!queue.offer(frame)) {
+            if (budget != null)
+                budget.release(size);
+
             errorHandler.notification(ERROR, "Cant send message: queue is full", callData);
+        }
 
 
         if (sending.compareAndSet(false, true))
@@ -234,6 +262,9 @@ public class FairSocket implements Runnable {
                     Frame framedata;
 
                     while ((framedata = queue.poll()) != null) {
+                        if (budget != null)
+                            budget.release(framedata.getPayloadData().length);
+
                         extension.encodeFrame(framedata);
 
                         final byte[] mes = framedata.getPayloadData();
@@ -244,25 +275,42 @@ public class FairSocket implements Runnable {
                         if (framedata.isRSV1()) one |= getRSVByte(1);
                         if (framedata.isRSV2()) one |= getRSVByte(2);
                         if (framedata.isRSV3()) one |= getRSVByte(3);
-                        os.write(one);
 
                         final byte[] payloadlengthbytes = toByteArray(mes.length, sizebytes);
+                        final byte[] maskkey = asBytes(nextInt());
+                        final byte[] block = BufferPool.take(BufferPool.LARGE);
 
-                        if (sizebytes == 1) {
-                            os.write((byte) (payloadlengthbytes[0] | (byte) -128));
-                        } else if (sizebytes == 2) {
-                            os.write((byte) ((byte) 126 | (byte) -128));
-                            os.write(payloadlengthbytes);
-                        } else if (sizebytes == 8) {
-                            os.write((byte) ((byte) 127 | (byte) -128));
-                            os.write(payloadlengthbytes);
-                        } else
-                            throw new IllegalStateException("Size representation not supported/specified");
+                        try {
+                            int pos = 0;
+                            block[pos++] = one;
 
-                        final byte[] maskkey = asBytes(nextInt());
+                            if (sizebytes == 1) {
+                                block[pos++] = (byte) (payloadlengthbytes[0] | (byte) -128);
+                            } else if (sizebytes == 2 || sizebytes == 8) {
+                                block[pos++] = (byte) ((byte) (sizebytes == 2 ? 126 : 127) | (byte) -128);
+                                System.arraycopy(payloadlengthbytes, 0, block, pos, sizebytes);
+                                pos += sizebytes;
+                            } else
+                                throw new IllegalStateException("Size representation not supported/specified");
+
+                            System.arraycopy(maskkey, 0, block, pos, 4);
+                            pos += 4;
 
-                        for (int i = 0; i < mes.length; i++)
-                            os.write((byte) (mes[i] ^ maskkey[i % 4]));
+                            for (int i = 0; i < mes.length; ) {
+                                final int n = Math.min(block.length - pos, mes.length - i);
+
+                                for (int j = 0; j < n; j++, i++)
+                                    block[pos + j] = (byte) (mes[i] ^ maskkey[i & 3]);
+
+                                os.write(block, 0, pos + n);
+                                pos = 0;
+                            }
+
+                            if (pos > 0)
+                                os.write(block, 0, pos);
+                        } finally {
+                            BufferPool.give(block);
+                        }
 
                         os.flush();
                     }
@@ -297,6 +345,12 @@ public class FairSocket implements Runnable {
         }
     }
 
+    private void readFully(final byte[] payload) throws IOException {
+        for (int off = 0, n; off < payload.length; off += n)
+            if ((n = is.read(payload, off, payload.length - off)) == -1)
+                throw new EOFException("Socket closed inside a frame");
+    }
+
     private byte[] toByteArray(long val, int bytecount) {
         byte[] buffer = new byte[bytecount];
         int highest = 8 * bytecount - 8;
@@ -0,0 +1,165 @@
+package org.logdoc.fairhttp.flow;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 26.10.2026 10:20
+ * fairhttp ☭ sweat and blood
+ *
+ * Streamed reply body as a Flow.Publisher. The socket is read only while the subscriber has demand, one read per item, so a
+ * slow subscriber holds the connection back (TCP window) instead of memory piling up. Reads run on the executor, one at a
+ * time, all signals come from there. Single subscriber; completion, error or cancel close the body and release the connection.
+ */
+public final class ReplyPublisher implements Flow.Publisher<ByteBuffer> {
+    private final InputStream body;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false), closed = new AtomicBoolean(false);
+
+    public ReplyPublisher(final InputStream body, final Executor executor) {
+        this.body = body;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("Subscriber");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Reply body has already been subscribed to"));
+            return;
+        }
+
+        final Emitter emitter = new Emitter(subscriber);
+        subscriber.onSubscribe(emitter);
+    }
+
+    /**
+     * Releases the body when nobody subscribed; a subscription ends by its own completion or cancel
+     */
+    public void close() {
+        if (subscribed.compareAndSet(false, true))
+            release();
+    }
+
+    private void release() {
+        if (closed.compareAndSet(false, true))
+            try {
+                body.close();
+            } catch (final IOException ignore) {
+            }
+    }
+
+    private final class Emitter implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong(0);
+        private final AtomicInteger wip = new AtomicInteger(0);
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalid;
+        private boolean done;
+
+        private Emitter(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0)
+                invalid = new IllegalArgumentException("Non-positive request: " + n);
+            else
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0)
+                try {
+                    executor.execute(this);
+                } catch (final RuntimeException e) { // rejected, nothing will run the loop
+                    cancelled = true;
+                    release();
+                }
+        }
+
+        @Override
+        public void run() {
+            byte[] buf = null;
+            int missed = 1;
+
+            try {
+                do {
+                    while (!done) {
+                        if (cancelled) {
+                            done = true;
+                            release();
+                        } else if (invalid != null) {
+                            fail(invalid);
+                        } else if (demand.get() > 0) {
+                            if (buf == null)
+                                buf = BufferPool.take(BufferPool.MEDIUM);
+
+                            final int n;
+                            try {
+                                n = body.read(buf);
+                            } catch (final IOException e) {
+                                fail(e);
+                                continue;
+                            }
+
+                            if (n == -1) {
+                                done = true;
+                                release();
+                                subscriber.onComplete();
+                            } else if (n > 0) {
+                                demand.decrementAndGet();
+                                subscriber.onNext(ByteBuffer.wrap(Arrays.copyOf(buf, n))); // item belongs to the subscriber
+                            }
+                        } else
+                            break;
+                    }
+
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            } catch (final RuntimeException e) { // subscriber broke the rules, stop talking to it
+                done = true;
+                release();
+            } finally {
+                BufferPool.give(buf);
+            }
+        }
+
+        private void fail(final Throwable e) {
+            done = true;
+            release();
+            subscriber.onError(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 24.10.2026 15:10
+ * fairhttp ☭ sweat and blood
+ *
+ * Shared I/O buffers in three size classes (4, 16 and 64 KB), heap arrays and direct buffers apart. A few buffers of each class
+ * are cached per platform thread, the rest go to a bounded shared queue; virtual threads use the shared queue only.
+ * Requests above the largest class are plain allocations and never pooled. A taken buffer has to be given back at most once
+ * and must not be touched after that.
+ */
+public final class BufferPool {
+    public static final int SMALL = 1024 * 4, MEDIUM = 1024 * 16, LARGE = 1024 * 64;
+
+    private static final int LOCAL = 4;
+    private static final boolean LOCAL_CACHE = !Threads.virtual();
+
+    private static final AtomicLong hits = new AtomicLong(0), misses = new AtomicLong(0), drops = new AtomicLong(0);
+
+    private static final Classes<byte[]> heap = new Classes<>(byte[]::new);
+    private static final Classes<ByteBuffer> direct = new Classes<>(ByteBuffer::allocateDirect);
+
+    private BufferPool() {
+    }
+
+    /**
+     * @return array of at least min bytes, its length is the size class
+     */
+    public static byte[] take(final int min) {
+        return heap.take(min);
+    }
+
+    public static void give(final byte[] buffer) {
+        if (buffer != null)
+            heap.give(buffer, buffer.length);
+    }
+
+    /**
+     * @return cleared direct buffer of at least min bytes
+     */
+    public static ByteBuffer takeDirect(final int min) {
+        return direct.take(min).clear();
+    }
+
+    public static void give(final ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect())
+            direct.give(buffer, buffer.capacity());
+    }
+
+    public static long hits() {
+        return hits.get();
+    }
+
+    public static long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Buffers given back to a full pool or of a foreign size
+     */
+    public static long drops() {
+        return drops.get();
+    }
+
+    /**
+     * Bytes idle in the shared queues
+     */
+    public static long pooled() {
+        return heap.pooled() + direct.pooled();
+    }
+
+    private static final class Classes<T> {
+        private final SizeClass<T> small, medium, large;
+        private final IntFunction<T> allocator;
+
+        private Classes(final IntFunction<T> allocator) {
+            this.allocator = allocator;
+
+            small = new SizeClass<>(SMALL, 256);
+            medium = new SizeClass<>(MEDIUM, 128);
+            large = new SizeClass<>(LARGE, 64);
+        }
+
+        private T take(final int min) {
+            final SizeClass<T> sc = min <= SMALL ? small : min <= MEDIUM ? medium : min <= LARGE ? large : null;
+
+            if (sc == null) {
+                misses.incrementAndGet();
+                return allocator.apply(min);
+            }
+
+            final T buffer = sc.poll();
+
+            if (buffer != null) {
+                hits.incrementAndGet();
+                return buffer;
+            }
+
+            misses.incrementAndGet();
+            return allocator.apply(sc.size);
+        }
+
+        private void give(final T buffer, final int size) {
+            final SizeClass<T> sc = size == SMALL ? small : size == MEDIUM ? medium : size == LARGE ? large : null;
+
+            if (sc == null || !sc.offer(buffer))
+                drops.incrementAndGet();
+        }
+
+        private long pooled() {
+            return (long) small.shared.size() * SMALL + (long) medium.shared.size() * MEDIUM + (long) large.shared.size() * LARGE;
+        }
+    }
+
+    private static final class SizeClass<T> {
+        private final int size, capacity;
+        private final ConcurrentLinkedQueue<T> shared = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger(0);
+        private final ThreadLocal<ArrayDeque<T>> local = ThreadLocal.withInitial(() -> new ArrayDeque<>(LOCAL));
+
+        private SizeClass(final int size, final int capacity) {
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        private T poll() {
+            if (LOCAL_CACHE) {
+                final T t = local.get().pollLast();
+
+                if (t != null)
+                    return t;
+            }
+
+            final T t = shared.poll();
+
+            if (t != null)
+                count.decrementAndGet();
+
+            return t;
+        }
+
+        private boolean offer(final T buffer) {
+            if (LOCAL_CACHE) {
+                final ArrayDeque<T> cache = local.get();
+
+                if (cache.size() < LOCAL) {
+                    cache.addLast(buffer);
+                    return true;
+                }
+            }
+
+            if (count.incrementAndGet() > capacity) {
+                count.decrementAndGet();
+                return false;
+            }
+
+            shared.offer(buffer);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 10:30
+ * fairhttp ☭ sweat and blood
+ *
+ * Streaming gzip / deflate body decoder. Wrappers are parsed here, so every stream runs on a pooled raw inflater (Zips);
+ * "deflate" is accepted both zlib-wrapped and raw, as servers send either. Close gives the inflater back and leaves
+ * the wire stream open.
+ */
+public final class Inflating extends InputStream {
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+    private final InputStream wire;
+    private final boolean gzip;
+    private final byte[] one = new byte[1];
+
+    private Inflater inflater;
+    private Checksum checksum;
+    private byte[] in;
+    private int pos, len;
+    private long wireBytes, decoded;
+    private boolean started, eof, zlib;
+
+    private Inflating(final InputStream wire, final boolean gzip) {
+        this.wire = wire;
+        this.gzip = gzip;
+    }
+
+    /**
+     * @return decoder for gzip or deflate content encoding, null for anything else
+     */
+    public static Inflating of(final InputStream wire, final String contentEncoding) {
+        if (wire == null || contentEncoding == null)
+            return null;
+
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip":
+            case "x-gzip":
+                return new Inflating(wire, true);
+            case "deflate":
+                return new Inflating(wire, false);
+            default:
+                return null;
+        }
+    }
+
+    public String encoding() {
+        return gzip ? "gzip" : "deflate";
+    }
+
+    /**
+     * Compressed bytes consumed so far
+     */
+    public long wire() {
+        return wireBytes;
+    }
+
+    public long decoded() {
+        return decoded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int length) throws IOException {
+        if (length == 0)
+            return 0;
+
+        if (!started && !start())
+            eof = true;
+
+        if (eof)
+            return -1;
+
+        try {
+            while (true) {
+                final int n = inflater.inflate(b, off, length);
+
+                if (n > 0) {
+                    checksum.update(b, off, n);
+                    decoded += n;
+
+                    return n;
+                }
+
+                if (inflater.finished()) {
+                    trailer();
+                    eof = true;
+
+                    return -1;
+                }
+
+                if (inflater.needsDictionary())
+                    throw new ZipException("Preset dictionary is not supported");
+
+                if (inflater.needsInput())
+                    feed();
+            }
+        } catch (final DataFormatException e) {
+            throw new ZipException("Corrupt " + encoding() + " body: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        Zips.give(inflater);
+        inflater = null;
+
+        BufferPool.give(in);
+        in = null;
+        eof = true;
+    }
+
+    private boolean start() throws IOException {
+        started = true;
+
+        if (eof)
+            throw new IOException("Stream closed");
+
+        in = BufferPool.take(BufferPool.MEDIUM);
+
+        if (!ensure(1))
+            return false; // empty body stays empty
+
+        if (gzip) {
+            if (next() != 0x1f || next() != 0x8b || next() != 8)
+                throw new ZipException("Not in GZIP format");
+
+            final int flags = next();
+            skip(6); // mtime, xfl, os
+
+            if ((flags & FEXTRA) != 0)
+                skip(next() | next() << 8);
+
+            if ((flags & FNAME) != 0)
+                while (next() != 0) ;
+
+            if ((flags & FCOMMENT) != 0)
+                while (next() != 0) ;
+
+            if ((flags & FHCRC) != 0)
+                skip(2);
+
+            checksum = new CRC32();
+        } else {
+            zlib = ensure(2) && (in[pos] & 0x0f) == 8 && ((in[pos] & 0xff) << 8 | in[pos + 1] & 0xff) % 31 == 0;
+
+            if (zlib) {
+                if ((in[pos + 1] & 0x20) != 0)
+                    throw new ZipException("Preset dictionary is not supported");
+
+                pos += 2;
+            }
+
+            checksum = new Adler32();
+        }
+
+        inflater = Zips.inflater();
+
+        if (pos < len) {
+            inflater.setInput(in, pos, len - pos);
+            pos = len;
+        }
+
+        return true;
+    }
+
+    private void feed() throws IOException {
+        final int n = wire.read(in);
+
+        if (n == -1)
+            throw new EOFException("Unexpected end of " + encoding() + " body");
+
+        wireBytes += n;
+        pos = len = n;
+        inflater.setInput(in, 0, n);
+    }
+
+    private void trailer() throws IOException {
+        pos = len - inflater.getRemaining();
+
+        if (gzip) {
+            if (readInt(false) != checksum.getValue() || readInt(false) != (decoded & 0xffffffffL))
+                throw new ZipException("Corrupt GZIP trailer");
+        } else if (zlib && readInt(true) != checksum.getValue())
+            throw new ZipException("Corrupt deflate checksum");
+    }
+
+    private long readInt(final boolean bigEndian) throws IOException {
+        long v = 0;
+
+        for (int i = 0; i < 4; i++)
+            v |= (long) next() << (bigEndian ? 24 - i * 8 : i * 8);
+
+        return v;
+    }
+
+    private void skip(int n) throws IOException {
+        while (n-- > 0)
+            next();
+    }
+
+    private int next() throws IOException {
+        if (!ensure(1))
+            throw new EOFException("Unexpected end of " + encoding() + " body");
+
+        return in[pos++] & 0xff;
+    }
+
+    /**
+     * Only while the inflater is not holding the buffer: before start and after finish
+     */
+    private boolean ensure(final int need) throws IOException {
+        if (len - pos >= need)
+            return true;
+
+        System.arraycopy(in, pos, in, 0, len - pos);
+        len -= pos;
+        pos = 0;
+
+        while (len < need) {
+            final int n = wire.read(in, len, in.length - len);
+
+            if (n == -1)
+                return false;
+
+            wireBytes += n;
+            len += n;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,185 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 24.10.2026 11:20
+ * fairhttp ☭ sweat and blood
+ *
+ * Bytes held in memory by all calls in flight: request payloads, buffered responses, websocket frames waiting to be sent.
+ * Usage is always counted, the limit (0 - none) makes new reservations wait or fail. A reservation larger than the whole
+ * limit is let through once nothing else is held, so it cannot starve forever. A call growing what it already holds passes it:
+ * the growth goes past the limit only while that call is the only holder, otherwise it waits or fails like a new one.
+ */
+public final class MemoryBudget {
+    public enum Policy {WAIT, FAIL}
+
+    public static final class Exhausted extends IOException {
+        Exhausted(final String message) {
+            super(message);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final AtomicLong used = new AtomicLong(0), peak = new AtomicLong(0), waits = new AtomicLong(0), rejections = new AtomicLong(0);
+    private final AtomicInteger waiting = new AtomicInteger(0);
+
+    private volatile long limit, maxWait = 30_000;
+    private volatile Policy policy = Policy.WAIT;
+
+    public MemoryBudget limit(final long bytes) {
+        limit = Math.max(0, bytes);
+        signal();
+
+        return this;
+    }
+
+    public MemoryBudget policy(final Policy policy) {
+        this.policy = policy == null ? Policy.WAIT : policy;
+
+        return this;
+    }
+
+    /**
+     * How long a waiting reservation may block before it fails, 0 - forever
+     */
+    public MemoryBudget maxWait(final long ms) {
+        maxWait = Math.max(0, ms);
+
+        return this;
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    public long maxWait() {
+        return maxWait;
+    }
+
+    public long used() {
+        return used.get();
+    }
+
+    public long peak() {
+        return peak.get();
+    }
+
+    /**
+     * Starts a new peak window from the current usage
+     */
+    public long resetPeak() {
+        return peak.getAndSet(used.get());
+    }
+
+    public long waits() {
+        return waits.get();
+    }
+
+    public long rejections() {
+        return rejections.get();
+    }
+
+    /**
+     * Blocks by the WAIT policy, throws Exhausted by FAIL or when the wait is over
+     */
+    public void acquire(final long bytes) throws IOException {
+        acquire(bytes, 0);
+    }
+
+    /**
+     * Growth of a reservation of {@code held} bytes the caller already has, blocks or fails by the policy like a new one
+     */
+    public void acquire(final long bytes, final long held) throws IOException {
+        if (tryAcquire(bytes, held))
+            return;
+
+        if (policy == Policy.FAIL)
+            throw rejected(bytes);
+
+        waits.incrementAndGet();
+        long nanos = maxWait > 0 ? TimeUnit.MILLISECONDS.toNanos(maxWait) : Long.MAX_VALUE;
+
+        lock.lock();
+        waiting.incrementAndGet();
+        try {
+            while (!tryAcquire(bytes, held)) {
+                if (nanos <= 0)
+                    throw rejected(bytes);
+
+                nanos = released.awaitNanos(nanos);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + bytes + " bytes of memory budget");
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Never blocks, for the event loops
+     */
+    public boolean tryAcquire(final long bytes) {
+        return tryAcquire(bytes, 0);
+    }
+
+    /**
+     * Never blocks, growth of a reservation of {@code held} bytes the caller already has
+     */
+    public boolean tryAcquire(final long bytes, final long held) {
+        if (bytes <= 0)
+            return true;
+
+        while (true) {
+            final long now = used.get(), lim = limit;
+
+            if (lim > 0 && now > held && now + bytes > lim)
+                return false;
+
+            if (used.compareAndSet(now, now + bytes)) {
+                peak.accumulateAndGet(now + bytes, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release(final long bytes) {
+        if (bytes <= 0)
+            return;
+
+        used.addAndGet(-bytes);
+        signal();
+    }
+
+    public Exhausted rejected(final long bytes) {
+        rejections.incrementAndGet();
+
+        return new Exhausted("Memory budget exhausted: " + bytes + " bytes requested, " + used.get() + " of " + limit + " in use");
+    }
+
+    private void signal() {
+        if (waiting.get() == 0)
+            return;
+
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 24.10.2026 15:40
+ * fairhttp ☭ sweat and blood
+ *
+ * ByteArrayOutputStream replacement over pooled chunks: growing never copies, the only copy is the final toByteArray.
+ * Close gives the chunks back to the pool.
+ */
+public final class PooledBytes extends OutputStream {
+    private final List<byte[]> chunks = new ArrayList<>(4);
+
+    private byte[] current;
+    private int pos;
+    private long size;
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void write(final int b) {
+        room()[pos++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) {
+        while (len > 0) {
+            final byte[] chunk = room();
+            final int n = Math.min(len, chunk.length - pos);
+
+            System.arraycopy(b, off, chunk, pos, n);
+            pos += n;
+            size += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Reads straight into the current chunk
+     *
+     * @return bytes read, -1 on end of stream
+     */
+    public int readFrom(final InputStream is) throws IOException {
+        final byte[] chunk = room();
+        final int n = is.read(chunk, pos, chunk.length - pos);
+
+        if (n > 0) {
+            pos += n;
+            size += n;
+        }
+
+        return n;
+    }
+
+    public byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too large for an array: " + size);
+
+        final byte[] bytes = new byte[(int) size];
+        int off = 0;
+
+        for (final byte[] chunk : chunks) {
+            final int n = chunk == current ? pos : chunk.length;
+            System.arraycopy(chunk, 0, bytes, off, n);
+            off += n;
+        }
+
+        return bytes;
+    }
+
+    public void writeTo(final OutputStream os) throws IOException {
+        for (final byte[] chunk : chunks)
+            os.write(chunk, 0, chunk == current ? pos : chunk.length);
+    }
+
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        for (final byte[] chunk : chunks) {
+            final ByteBuffer buf = ByteBuffer.wrap(chunk, 0, chunk == current ? pos : chunk.length);
+
+            while (buf.hasRemaining())
+                channel.write(buf);
+        }
+    }
+
+    @Override
+    public void close() {
+        chunks.forEach(BufferPool::give);
+        chunks.clear();
+        current = null;
+        pos = 0;
+        size = 0;
+    }
+
+    /**
+     * Small first, then medium, then large chunks
+     */
+    private byte[] room() {
+        if (current == null || pos == current.length) {
+            current = BufferPool.take(chunks.isEmpty() ? BufferPool.SMALL : chunks.size() == 1 ? BufferPool.MEDIUM : BufferPool.LARGE);
+            chunks.add(current);
+            pos = 0;
+        }
+
+        return current;
+    }
+}
@@ -0,0 +1,38 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 22.10.2026 10:05
+ * fairhttp ☭ sweat and blood
+ *
+ * Java 11 baseline: platform threads. The Java 21 build ships its own copy of this class (META-INF/versions/21) with virtual threads.
+ */
+public final class Threads {
+    private Threads() {
+    }
+
+    public static boolean virtual() {
+        return false;
+    }
+
+    /**
+     * @return default executor for blocking calls
+     */
+    public static Executor executor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Starts a long living blocking loop (socket readers)
+     */
+    public static Thread start(final String name, final Runnable task) {
+        final Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        t.start();
+
+        return t;
+    }
+}
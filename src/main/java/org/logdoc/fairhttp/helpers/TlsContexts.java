@@ -0,0 +1,224 @@
+package org.logdoc.fairhttp.helpers;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.logdoc.helpers.Inets.trustAllManager;
+import static org.logdoc.helpers.Sporadics.getRnd;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 14:20
+ * fairhttp ☭ sweat and blood
+ *
+ * TLS contexts shared by every transport: one per trust mode, so their session caches let repeated connections to a host
+ * resume with an abbreviated handshake. Default trust is the JVM default context (javax.net.ssl.* properties apply), trust-all is built once.
+ * Socket factories are cached per (trust mode, hostname verification, protocol set). TLS 1.3 and 1.2 are enabled by default,
+ * session caches keep the JVM defaults until sessionCache() is called.
+ */
+public final class TlsContexts {
+    private static final ConcurrentMap<Key, SSLSocketFactory> factories = new ConcurrentHashMap<>();
+
+    private static volatile SSLContext trustAll;
+    private static volatile String[] protocols = {"TLSv1.3", "TLSv1.2"};
+    private static volatile int cacheSize, cacheTimeout;
+    private static volatile boolean tuning;
+
+    private TlsContexts() {
+    }
+
+    public static SSLContext context(final boolean allTrusted) throws IOException {
+        try {
+            if (!allTrusted)
+                return tuned(SSLContext.getDefault());
+
+            if (trustAll == null)
+                synchronized (TlsContexts.class) {
+                    if (trustAll == null) {
+                        final SSLContext context = SSLContext.getInstance("TLS");
+                        context.init(null, trustAllManager, getRnd());
+                        trustAll = tuned(context);
+                    }
+                }
+
+            return trustAll;
+        } catch (final Exception e) {
+            throw new IOException("Cant initialize TLS: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Client parameters: enabled protocols of the current set the context supports, HTTPS endpoint identification if verifyHost
+     */
+    public static SSLParameters parameters(final boolean allTrusted, final boolean verifyHost) throws IOException {
+        final SSLContext context = context(allTrusted);
+        final SSLParameters parameters = context.getDefaultSSLParameters();
+        final String[] enabled = supported(context, protocols);
+
+        if (enabled.length > 0)
+            parameters.setProtocols(enabled);
+
+        if (verifyHost)
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+
+        return parameters;
+    }
+
+    /**
+     * Factory whose every socket gets the parameters() of its mode
+     */
+    public static SSLSocketFactory socketFactory(final boolean allTrusted, final boolean verifyHost) throws IOException {
+        final Key key = new Key(allTrusted, verifyHost, protocols);
+        final SSLSocketFactory cached = factories.get(key);
+
+        if (cached != null)
+            return cached;
+
+        final SSLSocketFactory factory = new Configured(context(allTrusted).getSocketFactory(), parameters(allTrusted, verifyHost));
+        final SSLSocketFactory raced = factories.putIfAbsent(key, factory);
+
+        return raced == null ? factory : raced;
+    }
+
+    /**
+     * Protocol set for new connections, in preference order; ones the JVM lacks are skipped
+     */
+    public static void protocols(final String... protocols) {
+        if (protocols != null && protocols.length > 0)
+            TlsContexts.protocols = protocols.clone();
+    }
+
+    public static String[] protocols() {
+        return protocols.clone();
+    }
+
+    /**
+     * Client session cache of the shared contexts, the JVM default one included
+     *
+     * @param size           sessions kept for resumption, 0 is no limit
+     * @param timeoutSeconds session lifetime, 0 is no limit
+     */
+    public static void sessionCache(final int size, final int timeoutSeconds) {
+        cacheSize = Math.max(0, size);
+        cacheTimeout = Math.max(0, timeoutSeconds);
+        tuning = true;
+
+        try {
+            tuned(SSLContext.getDefault());
+        } catch (final Exception ignore) {
+        }
+
+        if (trustAll != null)
+            tuned(trustAll);
+    }
+
+    private static SSLContext tuned(final SSLContext context) {
+        final SSLSessionContext sessions = context.getClientSessionContext();
+
+        if (tuning && sessions != null && (sessions.getSessionCacheSize() != cacheSize || sessions.getSessionTimeout() != cacheTimeout)) {
+            sessions.setSessionCacheSize(cacheSize);
+            sessions.setSessionTimeout(cacheTimeout);
+        }
+
+        return context;
+    }
+
+    private static String[] supported(final SSLContext context, final String[] wanted) {
+        final String[] known = context.getSupportedSSLParameters().getProtocols();
+
+        return Arrays.stream(wanted).filter(p -> Arrays.asList(known).contains(p)).toArray(String[]::new);
+    }
+
+    private static final class Key {
+        private final boolean allTrusted, verifyHost;
+        private final String[] protocols;
+        private final int hash;
+
+        private Key(final boolean allTrusted, final boolean verifyHost, final String[] protocols) {
+            this.allTrusted = allTrusted;
+            this.verifyHost = verifyHost;
+            this.protocols = protocols;
+            hash = Objects.hash(allTrusted, verifyHost, Arrays.hashCode(protocols));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return allTrusted == key.allTrusted && verifyHost == key.verifyHost && Arrays.equals(protocols, key.protocols);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Configured extends SSLSocketFactory {
+        private final SSLSocketFactory delegate;
+        private final SSLParameters parameters;
+
+        private Configured(final SSLSocketFactory delegate, final SSLParameters parameters) {
+            this.delegate = delegate;
+            this.parameters = parameters;
+        }
+
+        private Socket configured(final Socket socket) {
+            if (socket instanceof SSLSocket)
+                ((SSLSocket) socket).setSSLParameters(parameters);
+
+            return socket;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configured(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(final Socket s, final String host, final int port, final boolean autoClose) throws IOException {
+            return configured(delegate.createSocket(s, host, port, autoClose));
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) throws IOException {
+            return configured(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+            return configured(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            return configured(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) throws IOException {
+            return configured(delegate.createSocket(address, port, localAddress, localPort));
+        }
+    }
+}
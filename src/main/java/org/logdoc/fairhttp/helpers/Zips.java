@@ -0,0 +1,75 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 14:05
+ * fairhttp ☭ sweat and blood
+ *
+ * Shared raw (nowrap) inflaters and deflaters, gzip and zlib wrappers are written by the streams themselves. Both hold native
+ * memory, so the pools are bounded and the surplus is ended right away.
+ */
+public final class Zips {
+    private static final int POOL = 32;
+
+    private static final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger inflatersPooled = new AtomicInteger(0), deflatersPooled = new AtomicInteger(0);
+
+    private Zips() {
+    }
+
+    public static Inflater inflater() {
+        final Inflater inflater = inflaters.poll();
+
+        if (inflater == null)
+            return new Inflater(true);
+
+        inflatersPooled.decrementAndGet();
+        return inflater;
+    }
+
+    public static void give(final Inflater inflater) {
+        if (inflater == null)
+            return;
+
+        inflater.reset();
+
+        if (inflatersPooled.incrementAndGet() <= POOL)
+            inflaters.offer(inflater);
+        else {
+            inflatersPooled.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    public static Deflater deflater(final int level) {
+        final Deflater deflater = deflaters.poll();
+
+        if (deflater == null)
+            return new Deflater(level, true);
+
+        deflatersPooled.decrementAndGet();
+        deflater.setLevel(level);
+
+        return deflater;
+    }
+
+    public static void give(final Deflater deflater) {
+        if (deflater == null)
+            return;
+
+        deflater.reset();
+
+        if (deflatersPooled.incrementAndGet() <= POOL)
+            deflaters.offer(deflater);
+        else {
+            deflatersPooled.decrementAndGet();
+            deflater.end();
+        }
+    }
+}
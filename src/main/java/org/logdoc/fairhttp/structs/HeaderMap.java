@@ -0,0 +1,562 @@
+package org.logdoc.fairhttp.structs;
+
+import org.logdoc.fairhttp.structs.traits.Headers;
+
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 10:40
+ * fairhttp ☭ sweat and blood
+ *
+ * Header fields in wire order: names compare ignoring case and may repeat, common names are kept as one shared instance.
+ * As a map it holds one entry per name, in the order of first appearance, valued by the last field of the name: get(), put() and remove()
+ * act on all fields of the name. Repeats are reached with all(), first(), fields() and forEachField().
+ * A frozen map is immutable and keeps its encoding. A parsed one only records where the fields lie in the raw head,
+ * strings are made for the fields asked for.
+ */
+public final class HeaderMap extends AbstractMap<String, String> {
+    public static final HeaderMap EMPTY = new HeaderMap(0).freeze();
+
+    private static final String[][] common;
+
+    static {
+        final String[] names = {Headers.SendCookies, Headers.GetCookies, Headers.ContentType, Headers.ContentLength, Headers.TransferEncoding,
+                "Content-Disposition", Headers.Auth, Headers.Encoding, Headers.AcceptEncoding, Headers.Upgrade, Headers.Connection, Headers.Host,
+                Headers.SecWebsocketKey, Headers.SecWebsocketVersion, Headers.SecWebsocketExtensions, Headers.SecWebsocketProtocols,
+                Headers.SecWebsocketAccept, Headers.Range, Headers.IfRange, Headers.ContentRange, Headers.AcceptRanges, Headers.ETag,
+                Headers.LastModified, "Accept", "Accept-Language", "Age", "Allow", "Cache-Control", "Content-Language", "Content-Location",
+                "Date", "Expires", "If-Modified-Since", "If-None-Match", "Keep-Alive", "Link", "Location", "Origin", "Pragma",
+                "Proxy-Authenticate", "Referer", "Retry-After", "Server", "Strict-Transport-Security", "TE", "Trailer", "User-Agent", "Vary",
+                "Via", "WWW-Authenticate", "X-Content-Type-Options", "X-Frame-Options", "X-Request-Id", "Access-Control-Allow-Origin",
+                "Access-Control-Allow-Credentials", "Access-Control-Allow-Headers", "Access-Control-Allow-Methods", "Access-Control-Expose-Headers"};
+
+        final int max = Arrays.stream(names).mapToInt(String::length).max().orElse(0);
+        final List<List<String>> buckets = new ArrayList<>(max + 1);
+
+        for (int i = 0; i <= max; i++)
+            buckets.add(new ArrayList<>(2));
+
+        for (final String name : names)
+            buckets.get(name.length()).add(name);
+
+        common = new String[max + 1][];
+        for (int i = 0; i <= max; i++)
+            common[i] = buckets.get(i).toArray(new String[0]);
+    }
+
+    private String[] names, values;
+    /**
+     * Parsed maps: name from, name to, value from, value to in raw, per field not made into strings yet
+     */
+    private int[] spans;
+    private byte[] raw, encoded;
+    private int size;
+    private boolean frozen;
+    private Set<Entry<String, String>> entries;
+
+    public HeaderMap() {
+        this(8);
+    }
+
+    public HeaderMap(final int capacity) {
+        names = new String[Math.max(0, capacity)];
+        values = new String[names.length];
+    }
+
+    public HeaderMap(final Map<String, String> source) {
+        this(source == null ? 0 : source.size());
+
+        if (source instanceof HeaderMap)
+            addAll((HeaderMap) source);
+        else if (source != null)
+            source.forEach(this::add);
+    }
+
+    /**
+     * Fields of a raw head block, lines ending with CRLF or a bare LF, status line and the empty line excluded.
+     * The array is kept and must not be changed afterwards. Obsolete folded lines continue the previous value.
+     */
+    public static HeaderMap parse(final byte[] raw, final int from, final int to) throws ProtocolException {
+        final HeaderMap map = new HeaderMap(16);
+        map.raw = raw;
+        map.spans = new int[map.names.length * 4];
+
+        int line = from;
+
+        while (line < to) {
+            int end = line;
+            while (end < to && raw[end] != '\n')
+                end++;
+
+            final int next = end + 1;
+            if (end > line && raw[end - 1] == '\r')
+                end--;
+
+            if (end > line) {
+                if (raw[line] == ' ' || raw[line] == '\t') {
+                    if (map.size == 0)
+                        throw new ProtocolException("Invalid header line: " + new String(raw, line, end - line, StandardCharsets.ISO_8859_1));
+
+                    map.fold(new String(raw, line, end - line, StandardCharsets.ISO_8859_1));
+                } else
+                    map.field(line, end);
+            }
+
+            line = next;
+        }
+
+        return map;
+    }
+
+    /**
+     * Shared instance of a well known name, the name itself otherwise
+     */
+    public static String intern(final String name) {
+        if (name != null && name.length() < common.length)
+            for (final String c : common[name.length()])
+                if (c == name || c.equalsIgnoreCase(name))
+                    return c;
+
+        return name;
+    }
+
+    private static String intern(final byte[] raw, final int from, final int to) {
+        if (to - from < common.length)
+            for (final String c : common[to - from])
+                if (matches(raw, from, c))
+                    return c;
+
+        return new String(raw, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean matches(final byte[] raw, final int from, final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            final int a = raw[from + i] & 0xff, b = name.charAt(i);
+
+            if (a != b && lower(a) != lower(b))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int lower(final int c) {
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+
+    private void field(final int from, final int to) throws ProtocolException {
+        int colon = from;
+        while (colon < to && raw[colon] != ':')
+            colon++;
+
+        int nameTo = colon, valueFrom = colon + 1, valueTo = to;
+
+        while (nameTo > from && (raw[nameTo - 1] == ' ' || raw[nameTo - 1] == '\t'))
+            nameTo--;
+
+        if (colon == to || nameTo == from)
+            throw new ProtocolException("Invalid header line: " + new String(raw, from, to - from, StandardCharsets.ISO_8859_1));
+
+        while (valueFrom < valueTo && (raw[valueFrom] == ' ' || raw[valueFrom] == '\t'))
+            valueFrom++;
+
+        while (valueTo > valueFrom && (raw[valueTo - 1] == ' ' || raw[valueTo - 1] == '\t'))
+            valueTo--;
+
+        grow();
+
+        final int s = size * 4;
+        spans[s] = from;
+        spans[s + 1] = nameTo;
+        spans[s + 2] = valueFrom;
+        spans[s + 3] = valueTo;
+
+        names[size] = values[size] = null;
+        size++;
+    }
+
+    public String name(final int i) {
+        check(i);
+
+        if (names[i] == null)
+            names[i] = intern(raw, spans[i * 4], spans[i * 4 + 1]);
+
+        return names[i];
+    }
+
+    public String value(final int i) {
+        check(i);
+
+        if (values[i] == null)
+            values[i] = new String(raw, spans[i * 4 + 2], spans[i * 4 + 3] - spans[i * 4 + 2], StandardCharsets.ISO_8859_1);
+
+        return values[i];
+    }
+
+    private void check(final int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Field " + i + " of " + size);
+    }
+
+    private boolean is(final int i, final String name) {
+        final String n = names[i];
+
+        if (n != null)
+            return n == name || n.equalsIgnoreCase(name);
+
+        final int from = spans[i * 4];
+
+        return spans[i * 4 + 1] - from == name.length() && matches(raw, from, name);
+    }
+
+    private int indexOf(final Object name) {
+        if (name instanceof String)
+            for (int i = 0; i < size; i++)
+                if (is(i, (String) name))
+                    return i;
+
+        return -1;
+    }
+
+    private int lastIndexOf(final Object name) {
+        if (name instanceof String)
+            for (int i = size - 1; i >= 0; i--)
+                if (is(i, (String) name))
+                    return i;
+
+        return -1;
+    }
+
+    public String first(final String name) {
+        final int i = indexOf(name);
+
+        return i < 0 ? null : value(i);
+    }
+
+    /**
+     * @return every value of the name in wire order, empty if none
+     */
+    public List<String> all(final String name) {
+        List<String> all = null;
+
+        for (int i = 0; i < size; i++)
+            if (is(i, name)) {
+                if (all == null)
+                    all = new ArrayList<>(2);
+
+                all.add(value(i));
+            }
+
+        return all == null ? Collections.emptyList() : all;
+    }
+
+    @Override
+    public String get(final Object name) {
+        final int i = lastIndexOf(name);
+
+        return i < 0 ? null : value(i);
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * @return distinct names
+     */
+    @Override
+    public int size() {
+        int names = 0;
+
+        for (int i = 0; i < size; i++)
+            if (leading(i))
+                names++;
+
+        return names;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return fields, repeats included
+     */
+    public int fields() {
+        return size;
+    }
+
+    /**
+     * Every field in wire order, repeats included
+     */
+    public void forEachField(final BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < size; i++)
+            action.accept(name(i), value(i));
+    }
+
+    /**
+     * @return true if no field before i has the same name
+     */
+    private boolean leading(final int i) {
+        final String name = name(i);
+
+        for (int j = 0; j < i; j++)
+            if (is(j, name))
+                return false;
+
+        return true;
+    }
+
+    public HeaderMap add(final String name, final String value) {
+        mutable();
+
+        if (name == null || value == null)
+            throw new NullPointerException();
+
+        grow();
+        names[size] = intern(name);
+        values[size] = value;
+        size++;
+
+        return this;
+    }
+
+    public void addAll(final HeaderMap other) {
+        mutable();
+
+        if (size == 0 && other.raw != null) { // stays lazy
+            raw = other.raw;
+            spans = Arrays.copyOf(other.spans, other.size * 4 + 4);
+            names = Arrays.copyOf(other.names, other.size + 1);
+            values = Arrays.copyOf(other.values, other.size + 1);
+            size = other.size;
+            return;
+        }
+
+        for (int i = 0; i < other.size; i++)
+            add(other.name(i), other.value(i));
+    }
+
+    /**
+     * Obsolete line folding: the text continues the value of the last field
+     */
+    public void fold(final String continuation) {
+        mutable();
+
+        if (size == 0)
+            throw new IllegalStateException("No field to continue");
+
+        values[size - 1] = value(size - 1) + " " + continuation.trim();
+        encoded = null;
+    }
+
+    /**
+     * Replaces every value of the name with this one, kept at the place of the first
+     */
+    @Override
+    public String put(final String name, final String value) {
+        mutable();
+
+        if (value == null)
+            throw new NullPointerException();
+
+        final int i = indexOf(name);
+
+        if (i < 0) {
+            add(name, value);
+            return null;
+        }
+
+        final String last = get(name);
+        name(i);
+        values[i] = value;
+
+        for (int j = size - 1; j > i; j--)
+            if (is(j, name))
+                removeAt(j);
+
+        encoded = null;
+
+        return last;
+    }
+
+    @Override
+    public String remove(final Object name) {
+        mutable();
+
+        String last = null;
+
+        for (int i = size - 1; i >= 0; i--)
+            if (name instanceof String && is(i, (String) name)) {
+                if (last == null)
+                    last = value(i);
+
+                removeAt(i);
+            }
+
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        mutable();
+
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        raw = null;
+        spans = null;
+        size = 0;
+        encoded = null;
+    }
+
+    private void removeAt(final int i) {
+        final int tail = size - i - 1;
+
+        System.arraycopy(names, i + 1, names, i, tail);
+        System.arraycopy(values, i + 1, values, i, tail);
+
+        if (spans != null)
+            System.arraycopy(spans, (i + 1) * 4, spans, i * 4, tail * 4);
+
+        size--;
+        names[size] = values[size] = null;
+        encoded = null;
+    }
+
+    private void grow() {
+        if (size == names.length) {
+            final int capacity = Math.max(4, size * 2);
+
+            names = Arrays.copyOf(names, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        if (spans != null && spans.length < names.length * 4)
+            spans = Arrays.copyOf(spans, names.length * 4);
+
+        encoded = null;
+    }
+
+    private void mutable() {
+        if (frozen)
+            throw new UnsupportedOperationException("Frozen headers");
+    }
+
+    /**
+     * No changes from now on, the encoding is computed once
+     */
+    public HeaderMap freeze() {
+        frozen = true;
+
+        return this;
+    }
+
+    public boolean frozen() {
+        return frozen;
+    }
+
+    /**
+     * Mutable copy, a parsed map stays lazy and shares the raw head
+     */
+    public HeaderMap copy() {
+        final HeaderMap copy = new HeaderMap(0);
+        copy.addAll(this);
+
+        return copy;
+    }
+
+    /**
+     * @return "Name: value\r\n" for every field in US-ASCII, cached while frozen
+     */
+    public byte[] encoded() {
+        if (encoded != null)
+            return encoded;
+
+        final StringBuilder lines = new StringBuilder(size * 32);
+
+        for (int i = 0; i < size; i++) {
+            final String name = name(i), value = value(i);
+
+            if (unsafe(name) || unsafe(value))
+                throw new IllegalArgumentException("Illegal character(s) in header " + name);
+
+            lines.append(name).append(": ").append(value).append("\r\n");
+        }
+
+        final byte[] bytes = lines.toString().getBytes(StandardCharsets.US_ASCII);
+
+        if (frozen)
+            encoded = bytes;
+
+        return bytes;
+    }
+
+    private static boolean unsafe(final String s) {
+        return s.indexOf('\r') != -1 || s.indexOf('\n') != -1;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entries == null)
+            entries = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int next, last = -1;
+
+                        @Override
+                        public boolean hasNext() {
+                            while (next < size && !leading(next))
+                                next++;
+
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+
+                            last = next++;
+
+                            final String name = name(last);
+
+                            return new SimpleImmutableEntry<>(name, get(name));
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last < 0)
+                                throw new IllegalStateException();
+
+                            HeaderMap.this.remove(name(last)); // fields of the name are all at or after the leading one
+                            next = last;
+                            last = -1;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return HeaderMap.this.size();
+                }
+            };
+
+        return entries;
+    }
+}
@@ -22,9 +22,9 @@ public class Point {
     public final String query;
     public final Schemas schema;
 
-    private URL url;
-    private URI uri;
-    private Domain domain;
+    private volatile URL url;
+    private volatile URI uri;
+    private volatile Domain domain;
 
     public Point(final Schemas schema, final String host, final int port, final String path, final String query) {
         if (schema == null || isEmpty(host))
@@ -43,27 +43,21 @@ public class Point {
 
     public URL url() {
         if (url == null)
-            synchronized (this) {
-                try { url = new URL(schema.name(), host.trim(), port <= 0 ? schema.port : port, (isEmpty(path) ? "/" : (path.startsWith("/") ? "" : "/") + path.trim() + (isEmpty(query) ? "" : (query.trim().startsWith("?") ? "" : "?") + query.trim()))); } catch (final Exception ignore) { }
-            }
+            try { url = new URL(schema.name(), host.trim(), port <= 0 ? schema.port : port, (isEmpty(path) ? "/" : (path.startsWith("/") ? "" : "/") + path.trim() + (isEmpty(query) ? "" : (query.trim().startsWith("?") ? "" : "?") + query.trim()))); } catch (final Exception ignore) { }
 
         return url;
     }
 
     public URI uri() {
         if (uri == null)
-            synchronized (this) {
-                try { uri = new URI(schema.name(), null, host, port, path, query, null); } catch (final Exception ignore) { }
-            }
+            try { uri = new URI(schema.name(), null, host, port, path, query, null); } catch (final Exception ignore) { }
 
         return uri;
     }
 
     public Domain domain() {
         if (domain == null)
-            synchronized (this) {
-                try { domain = new Domain(host); } catch (final Exception ignore) { }
-            }
+            try { domain = new Domain(host); } catch (final Exception ignore) { }
 
         return domain;
     }
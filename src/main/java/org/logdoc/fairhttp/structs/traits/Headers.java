@@ -14,6 +14,7 @@ public interface Headers {
             ContentDisposition = "Content-disposition",
             Auth = "Authorization",
             Encoding = "Content-Encoding",
+            AcceptEncoding = "Accept-Encoding",
             Upgrade = "Upgrade",
             Connection = "Connection",
             Host = "Host",
@@ -21,5 +22,11 @@ public interface Headers {
             SecWebsocketVersion = "Sec-WebSocket-Version",
             SecWebsocketExtensions = "Sec-WebSocket-Extensions",
             SecWebsocketProtocols = "Sec-WebSocket-Protocol",
-            SecWebsocketAccept = "Sec-WebSocket-Accept";
+            SecWebsocketAccept = "Sec-WebSocket-Accept",
+            Range = "Range",
+            IfRange = "If-Range",
+            ContentRange = "Content-Range",
+            AcceptRanges = "Accept-Ranges",
+            ETag = "ETag",
+            LastModified = "Last-Modified";
 }
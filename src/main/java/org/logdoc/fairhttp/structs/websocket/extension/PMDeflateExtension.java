@@ -1,9 +1,10 @@
 package org.logdoc.fairhttp.structs.websocket.extension;
 
+import org.logdoc.fairhttp.helpers.BufferPool;
+import org.logdoc.fairhttp.helpers.PooledBytes;
 import org.logdoc.fairhttp.structs.websocket.Opcode;
 import org.logdoc.fairhttp.structs.websocket.frames.*;
 
-import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -20,7 +21,6 @@ public class PMDeflateExtension extends CompressionExtension {
     private static final int serverMaxWindowBits = 1 << 15;
     private static final int clientMaxWindowBits = 1 << 15;
     private static final byte[] TAIL_BYTES = {(byte) 0x00, (byte) 0x00, (byte) 0xFF, (byte) 0xFF};
-    private static final int BUFFER_SIZE = 1 << 10;
 
     private int threshold = 1024;
 
@@ -84,7 +84,7 @@ public class PMDeflateExtension extends CompressionExtension {
         if (inputFrame.getOpcode() == Opcode.CONTINUOUS && inputFrame.isRSV1())
             throw new ExtensionError(CloseFrame.POLICY_VALIDATION, "RSV1 bit can only be set for the first frame.");
 
-        try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+        try (final PooledBytes output = new PooledBytes()) {
             decompress(inputFrame.getPayloadData(), output);
 
             if (inflater.getRemaining() > 0) {
@@ -105,14 +105,18 @@ public class PMDeflateExtension extends CompressionExtension {
         }
     }
 
-    private void decompress(final byte[] data, final ByteArrayOutputStream outputBuffer) throws DataFormatException {
+    private void decompress(final byte[] data, final PooledBytes outputBuffer) throws DataFormatException {
         inflater.setInput(data);
-        byte[] buffer = new byte[BUFFER_SIZE];
+        final byte[] buffer = BufferPool.take(BufferPool.MEDIUM);
 
-        int bytesInflated;
+        try {
+            int bytesInflated;
 
-        while ((bytesInflated = inflater.inflate(buffer)) > 0)
-            outputBuffer.write(buffer, 0, bytesInflated);
+            while ((bytesInflated = inflater.inflate(buffer)) > 0)
+                outputBuffer.write(buffer, 0, bytesInflated);
+        } finally {
+            BufferPool.give(buffer);
+        }
     }
 
     @Override
@@ -128,8 +132,8 @@ public class PMDeflateExtension extends CompressionExtension {
             ((DataFrame) inputFrame).setRSV1(true);
 
         deflater.setInput(payloadData);
-        try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[1024];
+        final byte[] buffer = BufferPool.take(BufferPool.MEDIUM);
+        try (final PooledBytes output = new PooledBytes()) {
             int bytesCompressed;
 
             while ((bytesCompressed = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0)
@@ -152,6 +156,8 @@ public class PMDeflateExtension extends CompressionExtension {
             ((AFrame) inputFrame).setPayload(Arrays.copyOfRange(outputBytes, 0, outputLength));
         } catch (final Exception e) {
             throw new ExtensionError(CloseFrame.EXTENSION, e.getMessage());
+        } finally {
+            BufferPool.give(buffer);
         }
     }
 
@@ -0,0 +1,17 @@
+package org.logdoc.fairhttp.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 21.10.2026 12:35
+ * fairhttp ☭ sweat and blood
+ *
+ * Engine which can run an exchange without holding a caller thread for its whole duration
+ */
+public interface AsyncTransport extends Transport {
+    /**
+     * @return future of the response with the body already read in memory, closing it is optional
+     */
+    CompletableFuture<TransportResponse> exchangeAsync(RequestHead head, BodySource body);
+}
@@ -0,0 +1,232 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:31
+ * fairhttp ☭ sweat and blood
+ */
+public interface BodySource {
+    BodySource EMPTY = new Bytes(new byte[0]);
+
+    /**
+     * @return exact size in bytes or -1 when unknown (sent chunked)
+     */
+    long length();
+
+    void writeTo(OutputStream os) throws IOException;
+
+    InputStream stream() throws IOException;
+
+    /**
+     * @return true if the body can be sent once more, on redirect or retry
+     */
+    default boolean replayable() {
+        return true;
+    }
+
+    static BodySource of(final byte[] payload) {
+        return isEmpty(payload) ? EMPTY : new Bytes(payload);
+    }
+
+    /**
+     * One-shot stream of unknown length, sent chunked
+     */
+    static BodySource of(final InputStream stream) {
+        return new Input(stream);
+    }
+
+    static BodySource file(final Path path) throws IOException {
+        return new File(path);
+    }
+
+    static BodySource chunks(final Supplier<byte[]> supplier) {
+        return new Chunks(supplier);
+    }
+
+    /**
+     * @param length exact size or -1 if unknown (sent chunked)
+     */
+    static BodySource publisher(final Flow.Publisher<ByteBuffer> publisher, final long length) {
+        return new Published(publisher, length);
+    }
+
+    final class Bytes implements BodySource {
+        public final byte[] bytes;
+
+        public Bytes(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+
+        @Override
+        public void writeTo(final OutputStream os) throws IOException {
+            os.write(bytes);
+        }
+
+        @Override
+        public InputStream stream() {
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+
+    /**
+     * Streams straight from disk, native engine sends it with sendfile on plain sockets. Heap use does not depend on file size.
+     */
+    final class File implements BodySource {
+        public final Path path;
+        private final long length;
+
+        public File(final Path path) throws IOException {
+            this.path = path;
+            this.length = Files.size(path);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(final OutputStream os) throws IOException {
+            final byte[] buf = BufferPool.take(BufferPool.LARGE);
+            long left = length;
+            int n;
+
+            try (final InputStream is = Files.newInputStream(path)) {
+                while (left > 0 && (n = is.read(buf, 0, (int) Math.min(buf.length, left))) > 0) {
+                    os.write(buf, 0, n);
+                    left -= n;
+                }
+            } finally {
+                BufferPool.give(buf);
+            }
+
+            if (left > 0)
+                throw new IOException("File " + path + " shrank while sending, " + left + " bytes missing");
+        }
+
+        @Override
+        public InputStream stream() throws IOException {
+            return Files.newInputStream(path);
+        }
+    }
+
+    final class Input implements BodySource {
+        private final InputStream stream;
+
+        public Input(final InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public long length() {
+            return -1;
+        }
+
+        @Override
+        public boolean replayable() {
+            return false;
+        }
+
+        @Override
+        public void writeTo(final OutputStream os) throws IOException {
+            final byte[] buf = BufferPool.take(BufferPool.MEDIUM);
+            int n;
+
+            try (stream) {
+                while ((n = stream.read(buf)) != -1)
+                    os.write(buf, 0, n);
+            } finally {
+                BufferPool.give(buf);
+            }
+        }
+
+        @Override
+        public InputStream stream() {
+            return stream;
+        }
+    }
+
+    final class Chunks implements BodySource {
+        private final Supplier<byte[]> supplier;
+
+        public Chunks(final Supplier<byte[]> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public long length() {
+            return -1;
+        }
+
+        @Override
+        public boolean replayable() {
+            return false;
+        }
+
+        @Override
+        public void writeTo(final OutputStream os) throws IOException {
+            byte[] chunk;
+
+            while (!isEmpty(chunk = supplier.get())) {
+                os.write(chunk);
+                os.flush();
+            }
+        }
+
+        @Override
+        public InputStream stream() {
+            return new InputStream() {
+                private byte[] chunk;
+                private int pos;
+                private boolean eof;
+
+                @Override
+                public int read() {
+                    final byte[] one = new byte[1];
+
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) {
+                    if (len == 0)
+                        return 0;
+
+                    while (!eof && (chunk == null || pos >= chunk.length)) {
+                        chunk = supplier.get();
+                        pos = 0;
+                        eof = isEmpty(chunk);
+                    }
+
+                    if (eof)
+                        return -1;
+
+                    final int n = Math.min(len, chunk.length - pos);
+                    System.arraycopy(chunk, pos, b, off, n);
+                    pos += n;
+
+                    return n;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.logdoc.fairhttp.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:40
+ * fairhttp ☭ sweat and blood
+ *
+ * Every write call becomes one wire chunk.
+ */
+public final class ChunkedOutputStream extends FilterOutputStream {
+    private static final byte[] FEED = new byte[]{'\r', '\n'};
+    private static final byte[] LAST_CHUNK = new byte[]{'0', '\r', '\n', '\r', '\n'};
+
+    private long written;
+
+    public ChunkedOutputStream(final OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0)
+            return;
+
+        out.write(Integer.toHexString(len).getBytes(StandardCharsets.US_ASCII));
+        out.write(FEED);
+        out.write(b, off, len);
+        out.write(FEED);
+        written += len;
+    }
+
+    public void finish() throws IOException {
+        out.write(LAST_CHUNK);
+        out.flush();
+    }
+
+    public long written() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
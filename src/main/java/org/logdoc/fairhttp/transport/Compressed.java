@@ -0,0 +1,188 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+import org.logdoc.fairhttp.helpers.Zips;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 14:30
+ * fairhttp ☭ sweat and blood
+ *
+ * Body compressed on the way out, gzip or deflate (zlib-wrapped). Compression is a pull stage over the plain body, one pooled
+ * buffer at a time, so neither the plain nor the compressed body is held whole; the length is unknown and the body goes chunked.
+ * A preset dictionary is a zlib feature and needs deflate, the receiver must know the same dictionary.
+ */
+public final class Compressed implements BodySource {
+    public final BodySource plain;
+    public final String encoding;
+
+    private final boolean gzip;
+    private final byte[] dictionary;
+    private final int level;
+
+    public Compressed(final BodySource plain, final String encoding, final byte[] dictionary, final int level) {
+        if (!"gzip".equals(encoding) && !"deflate".equals(encoding))
+            throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+
+        if (dictionary != null && "gzip".equals(encoding))
+            throw new IllegalArgumentException("Preset dictionary needs deflate encoding");
+
+        this.plain = plain;
+        this.encoding = encoding;
+        this.dictionary = dictionary;
+        this.level = level;
+
+        gzip = "gzip".equals(encoding);
+    }
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public boolean replayable() {
+        return plain.replayable();
+    }
+
+    @Override
+    public void writeTo(final OutputStream os) throws IOException {
+        final byte[] buf = BufferPool.take(BufferPool.MEDIUM);
+        int n;
+
+        try (final InputStream is = stream()) {
+            while ((n = is.read(buf)) != -1)
+                os.write(buf, 0, n);
+        } finally {
+            BufferPool.give(buf);
+        }
+    }
+
+    @Override
+    public InputStream stream() throws IOException {
+        return new Deflating(plain.stream());
+    }
+
+    private final class Deflating extends InputStream {
+        private final InputStream source;
+        private final Checksum checksum = gzip ? new CRC32() : new Adler32();
+        private final byte[] one = new byte[1];
+
+        private Deflater deflater;
+        private byte[] in, pending;
+        private int pendingPos;
+        private boolean trailed;
+
+        private Deflating(final InputStream source) {
+            this.source = source;
+
+            deflater = Zips.deflater(level);
+            in = BufferPool.take(BufferPool.MEDIUM);
+
+            if (gzip)
+                pending = new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+            else {
+                final int cmf = 0x78, flg = 0x80 | (dictionary != null ? 0x20 : 0);
+                final int check = (cmf << 8 | flg) % 31;
+
+                pending = new byte[dictionary != null ? 6 : 2];
+                pending[0] = (byte) cmf;
+                pending[1] = (byte) (check == 0 ? flg : flg + 31 - check);
+
+                if (dictionary != null) {
+                    final Adler32 id = new Adler32();
+                    id.update(dictionary);
+                    putInt(pending, 2, id.getValue(), true);
+
+                    deflater.setDictionary(dictionary);
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0)
+                return 0;
+
+            if (deflater == null)
+                throw new IOException("Stream closed");
+
+            while (true) {
+                if (pending != null) {
+                    final int n = Math.min(len, pending.length - pendingPos);
+                    System.arraycopy(pending, pendingPos, b, off, n);
+
+                    if ((pendingPos += n) == pending.length) {
+                        pending = null;
+                        pendingPos = 0;
+                    }
+
+                    return n;
+                }
+
+                if (deflater.finished()) {
+                    if (trailed)
+                        return -1;
+
+                    trailed = true;
+                    pending = new byte[gzip ? 8 : 4];
+
+                    if (gzip) {
+                        putInt(pending, 0, checksum.getValue(), false);
+                        putInt(pending, 4, deflater.getBytesRead(), false);
+                    } else
+                        putInt(pending, 0, checksum.getValue(), true);
+
+                    continue;
+                }
+
+                final int n = deflater.deflate(b, off, len);
+
+                if (n > 0)
+                    return n;
+
+                if (deflater.needsInput()) {
+                    final int r = source.read(in);
+
+                    if (r == -1)
+                        deflater.finish();
+                    else if (r > 0) {
+                        checksum.update(in, 0, r);
+                        deflater.setInput(in, 0, r);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (deflater == null)
+                return;
+
+            Zips.give(deflater);
+            deflater = null;
+            BufferPool.give(in);
+            in = null;
+
+            source.close();
+        }
+    }
+
+    private static void putInt(final byte[] to, final int at, final long value, final boolean bigEndian) {
+        for (int i = 0; i < 4; i++)
+            to[at + i] = (byte) (value >>> (bigEndian ? 24 - i * 8 : i * 8));
+    }
+}
@@ -0,0 +1,197 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.helpers.TlsContexts;
+import org.logdoc.fairhttp.structs.traits.Schemas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.logdoc.helpers.Texts.isEmpty;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 11:40
+ * fairhttp ☭ sweat and blood
+ *
+ * java.net.http.HttpClient, one client per (proxy, redirect, trust) combination, call timeout is set per request.
+ * Hostname verification can only be disabled JVM-wide for this client (jdk.internal.httpclient.disableHostnameVerification),
+ * SOCKS proxies are not supported: such calls fail rather than go direct or verified.
+ */
+public class HttpClientTransport implements Transport {
+    private static final Set<String> restricted = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        restricted.add("Connection");
+        restricted.add("Content-Length");
+        restricted.add("Date");
+        restricted.add("Expect");
+        restricted.add("From");
+        restricted.add("Host");
+        restricted.add("Upgrade");
+        restricted.add("Transfer-Encoding");
+        restricted.add("Via");
+        restricted.add("Warning");
+    }
+
+    private final ConcurrentMap<Key, HttpClient> clients = new ConcurrentHashMap<>();
+    private final HttpClient.Version version;
+
+    public HttpClientTransport() {
+        this(HttpClient.Version.HTTP_1_1);
+    }
+
+    public HttpClientTransport(final HttpClient.Version version) {
+        this.version = version == null ? HttpClient.Version.HTTP_1_1 : version;
+    }
+
+    @Override
+    public TransportResponse exchange(final RequestHead head, final BodySource body) throws IOException {
+        if (head.proxy.type() == Proxy.Type.SOCKS)
+            throw new IOException("SOCKS proxy is not supported by java.net.http transport: " + head.proxy);
+
+        if (head.skipHostVerify && head.destination.schema == Schemas.https && !hostVerifyDisabled())
+            throw new IOException("Host verification can not be skipped by java.net.http transport unless jdk.internal.httpclient.disableHostnameVerification is set");
+
+        final HttpClient client;
+
+        try {
+            client = clients.computeIfAbsent(new Key(head), this::client);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        final HttpRequest.Builder rb = HttpRequest.newBuilder(head.destination.uri());
+
+        if (head.timeout > 0)
+            rb.timeout(Duration.ofMillis(head.timeout));
+
+        head.headers.forEachField((k, v) -> {
+            if (!isEmpty(k) && !isEmpty(v) && !restricted.contains(k))
+                rb.header(k, v);
+        });
+
+        final long length = body.length();
+        final HttpRequest.BodyPublisher publisher;
+
+        if (length == 0)
+            publisher = HttpRequest.BodyPublishers.noBody();
+        else if (body instanceof BodySource.Bytes)
+            publisher = HttpRequest.BodyPublishers.ofByteArray(((BodySource.Bytes) body).bytes);
+        else if (body instanceof BodySource.File)
+            publisher = HttpRequest.BodyPublishers.ofFile(((BodySource.File) body).path);
+        else if (body instanceof Published)
+            publisher = length < 0 ? HttpRequest.BodyPublishers.fromPublisher(((Published) body).publisher) : HttpRequest.BodyPublishers.fromPublisher(((Published) body).publisher, length);
+        else {
+            final HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(() -> {
+                try {
+                    return body.stream();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            publisher = length < 0 ? stream : HttpRequest.BodyPublishers.fromPublisher(stream, length);
+        }
+
+        rb.method(head.method, publisher);
+
+        final HttpResponse<InputStream> response;
+        try {
+            response = client.send(rb.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+
+        final ResponseHead rh = new ResponseHead();
+        rh.writtenAt = System.currentTimeMillis();
+        rh.written = Math.max(0, length);
+        rh.code = response.statusCode();
+        rh.message = "";
+        rh.version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+        response.headers().map().forEach((k, vv) -> vv.forEach(v -> rh.add(k, v)));
+        rh.contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        rh.chunked = response.headers().firstValue("Transfer-Encoding").map(te -> te.toLowerCase().contains("chunked")).orElse(false);
+
+        final InputStream is = response.body();
+
+        return new TransportResponse() {
+            @Override
+            public ResponseHead head() {
+                return rh;
+            }
+
+            @Override
+            public InputStream body() {
+                return is;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    is.close();
+                } catch (final Exception ignore) {
+                }
+            }
+        };
+    }
+
+    private static boolean hostVerifyDisabled() {
+        final String value = System.getProperty("jdk.internal.httpclient.disableHostnameVerification");
+
+        return value != null && (value.isEmpty() || Boolean.parseBoolean(value));
+    }
+
+    private HttpClient client(final Key key) {
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .followRedirects(key.followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+
+        if (key.proxy.type() == Proxy.Type.HTTP)
+            builder.proxy(ProxySelector.of((java.net.InetSocketAddress) key.proxy.address()));
+
+        try {
+            builder.sslContext(TlsContexts.context(key.allTrusted)).sslParameters(TlsContexts.parameters(key.allTrusted, false));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return builder.build();
+    }
+
+    private static final class Key {
+        private final Proxy proxy;
+        private final boolean followRedirects, allTrusted;
+
+        private Key(final RequestHead head) {
+            proxy = head.proxy;
+            followRedirects = head.followRedirects;
+            allTrusted = head.allTrusted;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return followRedirects == key.followRedirects && allTrusted == key.allTrusted && proxy.equals(key.proxy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(proxy, followRedirects, allTrusted);
+        }
+    }
+}
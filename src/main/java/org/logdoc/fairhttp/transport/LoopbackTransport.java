@@ -0,0 +1,94 @@
+package org.logdoc.fairhttp.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.logdoc.helpers.Texts.notNull;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 12:15
+ * fairhttp ☭ sweat and blood
+ *
+ * In-memory transport: requests never leave the JVM, handlers are matched by exact path. For tests and for measuring the client's own overhead.
+ */
+public class LoopbackTransport implements Transport {
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private volatile Handler fallback = (request, body, response) -> {
+        response.code = 404;
+        response.message = "Not Found";
+
+        return new byte[0];
+    };
+
+    public LoopbackTransport route(final String path, final Handler handler) {
+        if (handler == null)
+            handlers.remove(notNull(path, "/"));
+        else
+            handlers.put(notNull(path, "/"), handler);
+
+        return this;
+    }
+
+    public LoopbackTransport fallback(final Handler handler) {
+        if (handler != null)
+            fallback = handler;
+
+        return this;
+    }
+
+    @Override
+    public TransportResponse exchange(final RequestHead head, final BodySource body) throws IOException {
+        final byte[] payload;
+
+        if (body instanceof BodySource.Bytes)
+            payload = ((BodySource.Bytes) body).bytes;
+        else
+            try (final ByteArrayOutputStream os = new ByteArrayOutputStream(body.length() > 0 ? (int) body.length() : 1024)) {
+                body.writeTo(os);
+                payload = os.toByteArray();
+            }
+
+        final ResponseHead rh = new ResponseHead();
+        rh.written = payload.length;
+        rh.writtenAt = System.currentTimeMillis();
+        rh.code = 200;
+        rh.message = "OK";
+        rh.version = "HTTP/1.1";
+
+        final byte[] reply = handlers.getOrDefault(notNull(head.destination.path, "/"), fallback).handle(head, payload, rh);
+        final InputStream is = new ByteArrayInputStream(reply == null ? new byte[0] : reply);
+
+        if (rh.contentLength < 0 && !rh.chunked)
+            rh.contentLength = reply == null ? 0 : reply.length;
+
+        return new TransportResponse() {
+            @Override
+            public ResponseHead head() {
+                return rh;
+            }
+
+            @Override
+            public InputStream body() {
+                return is;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param response prefilled with 200 OK, handler may change code, message and headers
+         * @return response body
+         */
+        byte[] handle(RequestHead request, byte[] body, ResponseHead response) throws IOException;
+    }
+}
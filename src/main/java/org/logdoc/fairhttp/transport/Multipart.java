@@ -0,0 +1,134 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.helpers.Texts;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 22.10.2026 14:30
+ * fairhttp ☭ sweat and blood
+ *
+ * multipart/form-data written part by part straight to the wire. Part heads are encoded once when added,
+ * bodies are never copied. Length is exact when every part length is known, otherwise the body goes chunked.
+ */
+public final class Multipart implements BodySource {
+    private static final byte[] FEED = new byte[]{'\r', '\n'};
+
+    public final String boundary;
+
+    private final List<Part> parts = new ArrayList<>(2);
+    private final byte[] tail;
+
+    public Multipart(final String boundary) {
+        this.boundary = boundary;
+
+        tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    public Multipart add(final String name, final String fileName, final String contentType, final BodySource content) {
+        parts.add(new Part(head(name, fileName, contentType, content.length()), content));
+
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return parts.isEmpty();
+    }
+
+    @Override
+    public long length() {
+        long length = tail.length;
+
+        for (final Part p : parts) {
+            if (p.content.length() < 0)
+                return -1;
+
+            length += p.head.length + p.content.length() + FEED.length;
+        }
+
+        return length;
+    }
+
+    @Override
+    public boolean replayable() {
+        return parts.stream().allMatch(p -> p.content.replayable());
+    }
+
+    @Override
+    public void writeTo(final OutputStream os) throws IOException {
+        for (final Part p : parts) {
+            os.write(p.head);
+            p.content.writeTo(os);
+            os.write(FEED);
+        }
+
+        os.write(tail);
+    }
+
+    @Override
+    public InputStream stream() {
+        final Iterator<Part> i = parts.iterator();
+
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private Part part;
+            private boolean tailed;
+
+            @Override
+            public boolean hasMoreElements() {
+                return !tailed;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (part != null)
+                    try {
+                        return new SequenceInputStream(part.content.stream(), new ByteArrayInputStream(FEED));
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        part = null;
+                    }
+
+                if (i.hasNext())
+                    return new ByteArrayInputStream((part = i.next()).head);
+
+                if (tailed)
+                    throw new NoSuchElementException();
+
+                tailed = true;
+
+                return new ByteArrayInputStream(tail);
+            }
+        });
+    }
+
+    private byte[] head(final String name, final String fileName, final String contentType, final long length) {
+        return ("\r\n--" + boundary + "\r\n"
+                + "Content-Disposition:form-data;charset=UTF-8;name=\"" + name + "\";" + (Texts.isEmpty(fileName) ? "" : "filename=\"" + fileName + "\"") + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + (length >= 0 ? "Content-Length: " + length + "\r\n" : "")
+                + "Transfer-Encoding: binary\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Part {
+        private final byte[] head;
+        private final BodySource content;
+
+        private Part(final byte[] head, final BodySource content) {
+            this.head = head;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.helpers.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 25.10.2026 17:10
+ * fairhttp ☭ sweat and blood
+ *
+ * Body taken from a Flow.Publisher. At most WINDOW items are requested ahead and one more each time an item is written out, so
+ * demand follows the socket. Small items are coalesced into pooled blocks, a block goes out when full or when the publisher
+ * has nothing ready. A write failure cancels the subscription, a publisher error fails the call. Subscribed once.
+ */
+public final class Published implements BodySource {
+    private static final int WINDOW = 16;
+    private static final Object END = new Object();
+
+    public final Flow.Publisher<ByteBuffer> publisher;
+
+    private final long length;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * @param length exact byte count, -1 if unknown (sent chunked)
+     */
+    public Published(final Flow.Publisher<ByteBuffer> publisher, final long length) {
+        if (publisher == null)
+            throw new NullPointerException("Publisher");
+
+        this.publisher = publisher;
+        this.length = length < 0 ? -1 : length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public boolean replayable() {
+        return false;
+    }
+
+    @Override
+    public void writeTo(final OutputStream os) throws IOException {
+        final Drain drain = subscribe();
+        final byte[] block = BufferPool.take(BufferPool.LARGE);
+        int pos = 0;
+        long total = 0;
+
+        try {
+            while (true) {
+                ByteBuffer item = drain.poll();
+
+                if (item == null) { // publisher is behind or done, do not hold what we have
+                    if (pos > 0) {
+                        os.write(block, 0, pos);
+                        os.flush();
+                        pos = 0;
+                    }
+
+                    if ((item = drain.take()) == null)
+                        break;
+                }
+
+                if (length >= 0 && (total += item.remaining()) > length)
+                    throw new IOException("Publisher produced more than " + length + " declared bytes");
+
+                if (item.remaining() >= block.length && item.hasArray()) {
+                    if (pos > 0)
+                        os.write(block, 0, pos);
+
+                    os.write(item.array(), item.arrayOffset() + item.position(), item.remaining());
+                    pos = 0;
+                } else
+                    while (item.hasRemaining()) {
+                        final int n = Math.min(item.remaining(), block.length - pos);
+                        item.get(block, pos, n);
+
+                        if ((pos += n) == block.length) {
+                            os.write(block, 0, pos);
+                            pos = 0;
+                        }
+                    }
+
+                drain.consumed();
+            }
+
+            if (length >= 0 && total < length)
+                throw new IOException("Publisher produced " + total + " bytes, " + length + " declared");
+        } catch (final IOException | RuntimeException e) {
+            drain.cancel();
+            throw e;
+        } finally {
+            BufferPool.give(block);
+        }
+    }
+
+    @Override
+    public InputStream stream() throws IOException {
+        final Drain drain = subscribe();
+
+        return new InputStream() {
+            private final byte[] one = new byte[1];
+            private ByteBuffer current;
+            private boolean eof;
+
+            @Override
+            public int read() throws IOException {
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                if (len == 0)
+                    return 0;
+
+                while (!eof && (current == null || !current.hasRemaining())) {
+                    if (current != null)
+                        drain.consumed();
+
+                    eof = (current = drain.take()) == null;
+                }
+
+                if (eof)
+                    return -1;
+
+                final int n = Math.min(len, current.remaining());
+                current.get(b, off, n);
+
+                return n;
+            }
+
+            @Override
+            public void close() {
+                if (!eof)
+                    drain.cancel();
+
+                eof = true;
+            }
+        };
+    }
+
+    private Drain subscribe() throws IOException {
+        if (!subscribed.compareAndSet(false, true))
+            throw new IOException("Publisher body is already consumed");
+
+        final Drain drain = new Drain();
+        publisher.subscribe(drain);
+
+        return drain;
+    }
+
+    private static final class Drain implements Flow.Subscriber<ByteBuffer> {
+        private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            if (this.subscription != null || cancelled) {
+                subscription.cancel();
+                return;
+            }
+
+            this.subscription = subscription;
+            subscription.request(WINDOW);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            if (item == null)
+                throw new NullPointerException("Item");
+
+            if (!cancelled)
+                queue.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            queue.add(throwable == null ? new IllegalStateException("Publisher failed") : throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(END);
+        }
+
+        /**
+         * @return next item, null at the end or if nothing is ready; END stays queued
+         */
+        private ByteBuffer poll() throws IOException {
+            return queue.peek() == END ? null : item(queue.poll());
+        }
+
+        /**
+         * @return next item, null at the end
+         */
+        private ByteBuffer take() throws IOException {
+            try {
+                final Object o = queue.take();
+
+                if (o == END)
+                    queue.add(END);
+
+                return item(o);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new InterruptedIOException("Interrupted waiting for the body publisher");
+            }
+        }
+
+        private void consumed() {
+            final Flow.Subscription s = subscription;
+
+            if (s != null && !cancelled)
+                s.request(1);
+        }
+
+        private void cancel() {
+            cancelled = true;
+
+            final Flow.Subscription s = subscription;
+
+            if (s != null)
+                s.cancel();
+        }
+
+        private static ByteBuffer item(final Object o) throws IOException {
+            if (o == null || o == END)
+                return null;
+
+            if (o instanceof IOException)
+                throw (IOException) o;
+
+            if (o instanceof Throwable)
+                throw new IOException("Body publisher failed: " + ((Throwable) o).getMessage(), (Throwable) o);
+
+            return (ByteBuffer) o;
+        }
+    }
+}
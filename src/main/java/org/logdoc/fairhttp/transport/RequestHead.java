@@ -0,0 +1,59 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.structs.HeaderMap;
+import org.logdoc.fairhttp.structs.Point;
+
+import java.net.Proxy;
+import java.util.Map;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:14
+ * fairhttp ☭ sweat and blood
+ */
+public final class RequestHead {
+    public final String method;
+    public final Point destination;
+    public final HeaderMap headers;
+    public final Proxy proxy;
+    public final int timeout;
+    public final boolean followRedirects, allTrusted, skipHostVerify;
+    /**
+     * Engines that buffer the body themselves abort past it, 0 is no limit
+     */
+    public final long maxBody;
+    /**
+     * Header lines of a prepared call encoded once, Host and User-Agent included; framing is still derived from the body.
+     * Null for the rest, and for redirect hops since they may go elsewhere
+     */
+    public final byte[] encoded;
+
+    public RequestHead(final String method, final Point destination, final Map<String, String> headers, final Proxy proxy, final int timeout, final boolean followRedirects, final boolean allTrusted, final boolean skipHostVerify) {
+        this(method, destination, headers, proxy, timeout, followRedirects, allTrusted, skipHostVerify, 0);
+    }
+
+    public RequestHead(final String method, final Point destination, final Map<String, String> headers, final Proxy proxy, final int timeout, final boolean followRedirects, final boolean allTrusted, final boolean skipHostVerify, final long maxBody) {
+        this(method, destination, headers, proxy, timeout, followRedirects, allTrusted, skipHostVerify, maxBody, null);
+    }
+
+    public RequestHead(final String method, final Point destination, final Map<String, String> headers, final Proxy proxy, final int timeout, final boolean followRedirects, final boolean allTrusted, final boolean skipHostVerify, final long maxBody, final byte[] encoded) {
+        this.method = method;
+        this.destination = destination;
+        this.headers = headers instanceof HeaderMap ? (HeaderMap) headers : new HeaderMap(headers);
+        this.proxy = proxy == null ? Proxy.NO_PROXY : proxy;
+        this.timeout = timeout;
+        this.followRedirects = followRedirects;
+        this.allTrusted = allTrusted;
+        this.skipHostVerify = skipHostVerify;
+        this.maxBody = maxBody;
+        this.encoded = encoded;
+    }
+
+    public RequestHead redirect(final String method, final Point destination) {
+        return new RequestHead(method, destination, headers, proxy, timeout, followRedirects, allTrusted, skipHostVerify, maxBody);
+    }
+
+    public String header(final String name) {
+        return headers.get(name);
+    }
+}
@@ -0,0 +1,42 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.structs.HeaderMap;
+
+import java.util.List;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:20
+ * fairhttp ☭ sweat and blood
+ */
+public final class ResponseHead {
+    public final HeaderMap headers = new HeaderMap();
+    /**
+     * Chunked trailer fields, filled once the body is read to its end
+     */
+    public final HeaderMap trailers = new HeaderMap(0);
+    public int code;
+    public String message, version;
+    public long contentLength = -1, written, writtenAt;
+    /**
+     * TLS handshake ms done for this exchange, -1 if there was none (plain or reused connection) or the transport cant tell
+     */
+    public long handshake = -1;
+    public boolean chunked;
+
+    public String header(final String name) {
+        return headers.get(name);
+    }
+
+    public List<String> headers(final String name) {
+        return headers.all(name);
+    }
+
+    public void add(final String name, final String value) {
+        headers.add(name, value);
+    }
+
+    public void trailer(final String name, final String value) {
+        trailers.add(name, value);
+    }
+}
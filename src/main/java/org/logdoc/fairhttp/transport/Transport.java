@@ -0,0 +1,22 @@
+package org.logdoc.fairhttp.transport;
+
+import java.io.IOException;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:12
+ * fairhttp ☭ sweat and blood
+ *
+ * Engine SPI: request head + body source in, response head + body stream out.
+ * Cookies, tracing, error policy and body materialization stay with the caller.
+ */
+public interface Transport {
+    /**
+     * @return response with the head already read; caller must close it to release underlying connection
+     */
+    TransportResponse exchange(RequestHead head, BodySource body) throws IOException;
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
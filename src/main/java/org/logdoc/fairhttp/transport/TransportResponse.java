@@ -0,0 +1,31 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.helpers.MemoryBudget;
+
+import java.io.InputStream;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 10:25
+ * fairhttp ☭ sweat and blood
+ */
+public interface TransportResponse extends AutoCloseable {
+    ResponseHead head();
+
+    /**
+     * @return de-framed body, never null
+     */
+    InputStream body();
+
+    /**
+     * Memory budget bytes held for the body until close, handed over to the caller who then releases them to {@code budget}
+     *
+     * @return 0 if nothing is held in that budget
+     */
+    default long transfer(final MemoryBudget budget) {
+        return 0;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,122 @@
+package org.logdoc.fairhttp.transport;
+
+import org.logdoc.fairhttp.engine.Http1Engine;
+import org.logdoc.fairhttp.helpers.TlsContexts;
+import org.logdoc.fairhttp.structs.traits.Headers;
+import org.logdoc.fairhttp.structs.traits.Schemas;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 19.10.2026 11:02
+ * fairhttp ☭ sweat and blood
+ *
+ * JDK HttpURLConnection: keep-alive and pooling are JDK-internal (http.keepAlive / http.maxConnections).
+ * Bodies are streamed, fixed-length when the size is known and chunked otherwise, so the connection never buffers them whole.
+ * A streaming connection cannot follow redirects itself, the shared redirect loop does it for every request.
+ */
+public class UrlConnectionTransport implements Transport {
+    private static final int CHUNK = 1024 * 16;
+
+    @Override
+    public TransportResponse exchange(final RequestHead head, final BodySource body) throws IOException {
+        return Http1Engine.follow(head, body, this::exchange0);
+    }
+
+    private TransportResponse exchange0(final RequestHead head, final BodySource body) throws IOException {
+        final HttpURLConnection huc = (HttpURLConnection) head.destination.url().openConnection(head.proxy);
+        final long length = body.length();
+
+        huc.setDoInput(true); // read
+        huc.setDoOutput(length != 0); // write
+        huc.setRequestMethod(head.method);
+        huc.setInstanceFollowRedirects(false);
+        huc.setUseCaches(false);
+
+        if (length > 0)
+            huc.setFixedLengthStreamingMode(length);
+        else if (length < 0)
+            huc.setChunkedStreamingMode(CHUNK);
+
+        if (head.timeout > 0) {
+            huc.setConnectTimeout(head.timeout);
+            huc.setReadTimeout(head.timeout);
+        }
+
+        head.headers.forEachField((k, v) -> { // framing belongs to the streaming mode
+            if (!Headers.TransferEncoding.equalsIgnoreCase(k) && !Headers.ContentLength.equalsIgnoreCase(k))
+                huc.addRequestProperty(k, v);
+        });
+
+        if (head.destination.schema == Schemas.https) {
+            ((HttpsURLConnection) huc).setSSLSocketFactory(TlsContexts.socketFactory(head.allTrusted, !head.skipHostVerify));
+
+            if (head.skipHostVerify) ((HttpsURLConnection) huc).setHostnameVerifier((hostname, session) -> true);
+        }
+
+        huc.connect();
+
+        final long[] written = {0};
+        if (length != 0)
+            try (final OutputStream os = new FilterOutputStream(huc.getOutputStream()) {
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    out.write(b, off, len);
+                    written[0] += len;
+                }
+
+                @Override
+                public void write(final int b) throws IOException {
+                    out.write(b);
+                    written[0]++;
+                }
+            }) {
+                body.writeTo(os);
+                os.flush();
+            }
+
+        final ResponseHead rh = new ResponseHead();
+        rh.written = written[0];
+        rh.writtenAt = System.currentTimeMillis();
+        rh.code = huc.getResponseCode();
+        rh.message = huc.getResponseMessage();
+
+        String headerName;
+        for (int i = 1;  // 0 - это status line (код и сообщение)
+             (headerName = huc.getHeaderFieldKey(i)) != null; i++)
+            rh.add(headerName, huc.getHeaderField(i));
+
+        rh.contentLength = huc.getContentLengthLong();
+        rh.chunked = rh.header(Headers.TransferEncoding) != null && rh.header(Headers.TransferEncoding).toLowerCase().contains("chunked");
+
+        final InputStream es = rh.code >= 400 ? huc.getErrorStream() : null;
+        final InputStream is = es != null ? es : rh.code >= 400 ? new ByteArrayInputStream(new byte[0]) : huc.getInputStream();
+
+        return new TransportResponse() {
+            @Override
+            public ResponseHead head() {
+                return rh;
+            }
+
+            @Override
+            public InputStream body() {
+                return is;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    is.close();
+                } catch (final Exception ignore) {
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package org.logdoc.fairhttp.helpers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 22.10.2026 10:05
+ * fairhttp ☭ sweat and blood
+ *
+ * Java 21 overlay: blocking calls and socket readers run on virtual threads.
+ */
+public final class Threads {
+    private static final ExecutorService perTask = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Threads() {
+    }
+
+    public static boolean virtual() {
+        return true;
+    }
+
+    /**
+     * @return default executor for blocking calls
+     */
+    public static Executor executor() {
+        return perTask;
+    }
+
+    /**
+     * Starts a long living blocking loop (socket readers)
+     */
+    public static Thread start(final String name, final Runnable task) {
+        return Thread.ofVirtual().name(name).start(task);
+    }
+}
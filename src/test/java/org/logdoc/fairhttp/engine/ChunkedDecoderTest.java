@@ -0,0 +1,111 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 26.10.2026 10:40
+ * fairhttp ☭ sweat and blood
+ */
+class ChunkedDecoderTest {
+    private static final String BODY = "4\r\nWiki\r\n5;name=value\r\npedia\r\nE\r\n in\r\n\r\nchunks.\r\n0\r\nX-Checksum: abc\r\nX-Note:  two words \r\n\r\n";
+    private static final String DATA = "Wikipedia in\r\n\r\nchunks.";
+
+    @Test
+    void whole() throws ProtocolException {
+        final ResponseHead head = new ResponseHead();
+        final ByteBuffer src = ascii(BODY + "HTTP/1.1 200 OK\r\n");
+
+        assertEquals(DATA, decode(new ChunkedDecoder(head), src));
+        assertEquals("abc", head.trailers.get("x-checksum"));
+        assertEquals("two words", head.trailers.get("X-Note"));
+        assertEquals("HTTP/1.1 200 OK\r\n", StandardCharsets.US_ASCII.decode(src).toString()); // next response stays in place
+    }
+
+    @Test
+    void splitAtEveryByte() throws ProtocolException {
+        final byte[] all = BODY.getBytes(StandardCharsets.US_ASCII);
+
+        for (int at = 0; at <= all.length; at++) {
+            final ResponseHead head = new ResponseHead();
+            final ChunkedDecoder decoder = new ChunkedDecoder(head);
+
+            final String first = decode(decoder, ByteBuffer.wrap(Arrays.copyOfRange(all, 0, at)));
+            assertEquals(at == all.length, decoder.done(), "split at " + at);
+
+            assertEquals(DATA, first + decode(decoder, ByteBuffer.wrap(Arrays.copyOfRange(all, at, all.length))), "split at " + at);
+            assertEquals("abc", head.trailers.get("X-Checksum"), "split at " + at);
+        }
+    }
+
+    @Test
+    void oneByteAtATime() throws ProtocolException {
+        final ChunkedDecoder decoder = new ChunkedDecoder(new ResponseHead());
+        final StringBuilder out = new StringBuilder();
+
+        for (final byte b : BODY.getBytes(StandardCharsets.US_ASCII))
+            out.append(decode(decoder, ByteBuffer.wrap(new byte[]{b})));
+
+        assertEquals(DATA, out.toString());
+        assertTrue(decoder.done());
+    }
+
+    @Test
+    void sliceLimit() throws ProtocolException {
+        final ChunkedDecoder decoder = new ChunkedDecoder(null);
+        final ByteBuffer src = ascii("a\r\n0123456789\r\n0\r\n\r\n");
+
+        assertEquals("0123", ascii(decoder.next(src, 4)));
+        assertEquals("4567", ascii(decoder.next(src, 4)));
+        assertEquals("89", ascii(decoder.next(src, 4)));
+        assertFalse(decoder.next(src, 4).hasRemaining());
+        assertTrue(decoder.done());
+    }
+
+    @Test
+    void bareLineFeeds() throws ProtocolException {
+        final ChunkedDecoder decoder = new ChunkedDecoder(null);
+
+        assertEquals("abc", decode(decoder, ascii("3\nabc\n0\n\n")));
+        assertTrue(decoder.done());
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(ProtocolException.class, () -> decode(new ChunkedDecoder(null), ascii("x\r\n")));
+        assertThrows(ProtocolException.class, () -> decode(new ChunkedDecoder(null), ascii("3\r\nabcX")));
+        assertThrows(ProtocolException.class, () -> decode(new ChunkedDecoder(null), ascii("3\rX")));
+        assertThrows(ProtocolException.class, () -> decode(new ChunkedDecoder(null), ascii("1000000000000000\r\n")));
+    }
+
+    private static String decode(final ChunkedDecoder decoder, final ByteBuffer src) throws ProtocolException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer slice;
+
+        while ((slice = decoder.next(src)).hasRemaining())
+            while (slice.hasRemaining())
+                out.write(slice.get());
+
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuffer ascii(final String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String ascii(final ByteBuffer b) {
+        return StandardCharsets.US_ASCII.decode(b).toString();
+    }
+}
@@ -0,0 +1,129 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.structs.traits.Schemas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 18.10.2026 09:40
+ * fairhttp ☭ sweat and blood
+ */
+class ConnectionPoolTest {
+    private ServerSocket server;
+    private Thread acceptor;
+    private Route route;
+
+    @BeforeEach
+    void listen() throws IOException {
+        server = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        route = new Route(Schemas.http, "127.0.0.1", server.getLocalPort(), Proxy.NO_PROXY, false, false);
+
+        acceptor = new Thread(() -> {
+            while (!server.isClosed())
+                try (final Socket ignored = server.accept()) {
+                    // nothing is served, only connects are counted
+                } catch (final IOException ignore) {
+                }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void leaseSurvivesEviction() throws IOException {
+        final ConnectionPool pool = new ConnectionPool().maxPerHost(2).acquireTimeout(100);
+
+        try {
+            final Connection c = pool.acquire(route, 1000);
+            pool.evictIdle();
+            pool.release(c, false);
+
+            assertEquals(0, pool.leased(route));
+            assertPermits(pool, 2);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void evictionRacingLeases() throws Exception {
+        final int max = 1;
+        final ConnectionPool pool = new ConnectionPool().maxPerHost(max).acquireTimeout(1000);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger holders = new AtomicInteger(), broken = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        try {
+            threads.add(new Thread(() -> {
+                while (!stop.get())
+                    pool.evictIdle();
+            }));
+
+            for (int i = 0; i < 16; i++)
+                threads.add(new Thread(() -> {
+                    while (!stop.get())
+                        try {
+                            final Connection c = pool.acquire(route, 1000);
+
+                            if (holders.incrementAndGet() > max || pool.leased(route) < 1)
+                                broken.incrementAndGet();
+
+                            holders.decrementAndGet();
+                            pool.release(c, false);
+
+                            if (pool.leased(route) < 0)
+                                broken.incrementAndGet();
+                        } catch (final IOException e) {
+                            broken.incrementAndGet();
+                        }
+                }));
+
+            threads.forEach(Thread::start);
+            Thread.sleep(1000);
+            stop.set(true);
+
+            for (final Thread t : threads)
+                t.join();
+
+            assertEquals(0, broken.get());
+            assertEquals(0, pool.leased(route));
+            assertPermits(pool, max);
+        } finally {
+            stop.set(true);
+            pool.shutdown();
+        }
+    }
+
+    private void assertPermits(final ConnectionPool pool, final int permits) throws IOException {
+        final List<Connection> held = new ArrayList<>();
+
+        for (int i = 0; i < permits; i++)
+            held.add(pool.acquire(route, 1000));
+
+        assertThrows(ConnectException.class, () -> pool.acquire(route, 1000));
+        assertEquals(permits, pool.leased(route));
+
+        held.forEach(c -> pool.release(c, false));
+    }
+}
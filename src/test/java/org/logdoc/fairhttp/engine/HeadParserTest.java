@@ -0,0 +1,125 @@
+package org.logdoc.fairhttp.engine;
+
+import org.logdoc.fairhttp.structs.HeaderMap;
+import org.logdoc.fairhttp.transport.ResponseHead;
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 26.10.2026 11:05
+ * fairhttp ☭ sweat and blood
+ */
+class HeadParserTest {
+    private static final String HEAD = "HTTP/1.1 404 Not Found\r\nContent-Type: text/plain\r\nSet-Cookie: a=1\r\nX-Folded: one\r\n  two\r\nset-cookie: b=2\r\n\r\n";
+
+    @Test
+    void whole() throws ProtocolException {
+        final HeadParser parser = new HeadParser();
+        final ByteBuffer src = ascii(HEAD + "BODY");
+
+        assertTrue(parser.feed(src));
+        check(parser);
+        assertEquals("BODY", StandardCharsets.US_ASCII.decode(src).toString());
+    }
+
+    @Test
+    void splitAtEveryByte() throws ProtocolException {
+        final byte[] all = (HEAD + "BODY").getBytes(StandardCharsets.US_ASCII);
+        final int head = HEAD.length();
+
+        for (int at = 0; at <= all.length; at++) {
+            final HeadParser parser = new HeadParser();
+            final ByteBuffer first = ByteBuffer.wrap(Arrays.copyOfRange(all, 0, at)), second = ByteBuffer.wrap(Arrays.copyOfRange(all, at, all.length));
+
+            if (at >= head) {
+                assertTrue(parser.feed(first), "split at " + at);
+                assertEquals(at - head, first.remaining(), "split at " + at);
+            } else {
+                assertFalse(parser.feed(first), "split at " + at);
+                assertEquals(at == 0, parser.empty(), "split at " + at);
+                assertTrue(parser.feed(second), "split at " + at);
+                assertEquals(4, second.remaining(), "split at " + at);
+            }
+
+            check(parser);
+        }
+    }
+
+    @Test
+    void reusedForNextHead() throws ProtocolException {
+        final HeadParser parser = new HeadParser();
+        final ByteBuffer src = ascii("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.0 204\nServer: x\n\n");
+
+        assertTrue(parser.feed(src));
+        assertEquals(100, parser.code());
+        assertEquals("Continue", parser.message());
+        assertEquals(0, parser.headers().fields());
+
+        assertTrue(parser.feed(src));
+        assertEquals(204, parser.code());
+        assertEquals("HTTP/1.0", parser.version());
+        assertEquals("", parser.message());
+        assertEquals("x", parser.headers().get("server"));
+        assertFalse(src.hasRemaining());
+    }
+
+    @Test
+    void strayEmptyLinesBeforeStatus() throws ProtocolException {
+        final HeadParser parser = new HeadParser();
+
+        assertTrue(parser.feed(ascii("\r\n\r\nHTTP/1.1 200 OK\r\n\r\n")));
+        assertEquals(200, parser.code());
+    }
+
+    @Test
+    void intoResponseHead() throws ProtocolException {
+        final HeadParser parser = new HeadParser();
+        final ResponseHead head = new ResponseHead();
+        head.add("Stale", "1");
+
+        parser.feed(ascii(HEAD));
+        parser.into(head);
+
+        assertEquals(404, head.code);
+        assertEquals("HTTP/1.1", head.version);
+        assertEquals("Not Found", head.message);
+        assertEquals(null, head.header("Stale"));
+        assertEquals(Arrays.asList("a=1", "b=2"), head.headers("Set-Cookie"));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(ProtocolException.class, () -> new HeadParser().feed(ascii("HTTX/1.1 200 OK\r\n")));
+        assertThrows(ProtocolException.class, () -> new HeadParser().feed(ascii("HTTP/1.1 2x0 OK\r\n")));
+        assertThrows(ProtocolException.class, () -> new HeadParser().feed(ascii("HTTP/1.1 2000 OK\r\n")));
+        assertThrows(ProtocolException.class, () -> new HeadParser(16, 8).feed(ascii("HTTP/1.1 200 Fine and dandy\r\n")));
+        assertThrows(ProtocolException.class, () -> new HeadParser(64, 1).feed(ascii("HTTP/1.1 200 OK\r\nA: 1\r\nB: 2\r\n")));
+        assertThrows(IllegalStateException.class, () -> new HeadParser().headers());
+    }
+
+    private static void check(final HeadParser parser) throws ProtocolException {
+        final HeaderMap headers = parser.headers();
+
+        assertEquals(404, parser.code());
+        assertEquals("HTTP/1.1", parser.version());
+        assertEquals("Not Found", parser.message());
+        assertEquals(4, headers.fields());
+        assertEquals("text/plain", headers.get("content-type"));
+        assertEquals("one two", headers.get("X-Folded"));
+        assertEquals(Arrays.asList("a=1", "b=2"), headers.all("Set-Cookie"));
+    }
+
+    private static ByteBuffer ascii(final String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,181 @@
+package org.logdoc.fairhttp.engine.h2;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 26.10.2026 10:10
+ * fairhttp ☭ sweat and blood
+ *
+ * RFC 7541 Appendix C examples
+ */
+class HpackTest {
+    private static final String DATE_21 = "Mon, 21 Oct 2013 20:13:21 GMT", DATE_22 = "Mon, 21 Oct 2013 20:13:22 GMT", LOCATION = "https://www.example.com",
+            COOKIE = "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1";
+
+    @Test
+    void literalWithIndexing() throws ProtocolException { // C.2.1
+        assertEquals(Arrays.asList("custom-key: custom-header"), decode(new Hpack.Decoder(4096), "400a 6375 7374 6f6d 2d6b 6579 0d63 7573 746f 6d2d 6865 6164 6572"));
+    }
+
+    @Test
+    void literalWithoutIndexing() throws ProtocolException { // C.2.2
+        assertEquals(Arrays.asList(":path: /sample/path"), decode(new Hpack.Decoder(4096), "040c 2f73 616d 706c 652f 7061 7468"));
+    }
+
+    @Test
+    void literalNeverIndexed() throws ProtocolException { // C.2.3
+        assertEquals(Arrays.asList("password: secret"), decode(new Hpack.Decoder(4096), "1008 7061 7373 776f 7264 0673 6563 7265 74"));
+    }
+
+    @Test
+    void indexed() throws ProtocolException { // C.2.4
+        assertEquals(Arrays.asList(":method: GET"), decode(new Hpack.Decoder(4096), "82"));
+    }
+
+    @Test
+    void requestsPlain() throws ProtocolException { // C.3
+        final Hpack.Decoder decoder = new Hpack.Decoder(4096);
+
+        assertEquals(request1(), decode(decoder, "8286 8441 0f77 7777 2e65 7861 6d70 6c65 2e63 6f6d"));
+        assertEquals(request2(), decode(decoder, "8286 84be 5808 6e6f 2d63 6163 6865"));
+        assertEquals(request3(), decode(decoder, "8287 85bf 400a 6375 7374 6f6d 2d6b 6579 0c63 7573 746f 6d2d 7661 6c75 65"));
+    }
+
+    @Test
+    void requestsHuffman() throws ProtocolException { // C.4
+        final Hpack.Decoder decoder = new Hpack.Decoder(4096);
+
+        assertEquals(request1(), decode(decoder, C41));
+        assertEquals(request2(), decode(decoder, C42));
+        assertEquals(request3(), decode(decoder, C43));
+    }
+
+    @Test
+    void encoderMatchesHuffmanRequests() { // C.4, the encoder Huffman-codes every string it can shorten
+        final Hpack.Encoder encoder = new Hpack.Encoder();
+
+        assertArrayEquals(hex(C41), encode(encoder, request1()));
+        assertArrayEquals(hex(C42), encode(encoder, request2()));
+        assertArrayEquals(hex(C43), encode(encoder, request3()));
+    }
+
+    @Test
+    void responsesPlainWithEviction() throws ProtocolException { // C.5, 256 bytes table
+        final Hpack.Decoder decoder = new Hpack.Decoder(256);
+
+        assertEquals(response(302, DATE_21), decode(decoder, "4803 3330 3258 0770 7269 7661 7465 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3120 474d 546e 1768 7474 7073 3a2f 2f77 7777 2e65 7861 6d70 6c65 2e63 6f6d"));
+        assertEquals(response(307, DATE_21), decode(decoder, "4803 3330 37c1 c0bf"));
+        assertEquals(response3(), decode(decoder, "88c1 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3220 474d 54c0 5a04 677a 6970 7738 666f 6f3d 4153 444a 4b48 514b 425a 584f 5157 454f 5049 5541 5851 5745 4f49 553b 206d 6178 2d61 6765 3d33 3630 303b 2076 6572 7369 6f6e 3d31"));
+    }
+
+    @Test
+    void responsesHuffmanWithEviction() throws ProtocolException { // C.6, 256 bytes table
+        final Hpack.Decoder decoder = new Hpack.Decoder(256);
+
+        assertEquals(response(302, DATE_21), decode(decoder, "4882 6402 5885 aec3 771a 4b61 96d0 7abe 9410 54d4 44a8 2005 9504 0b81 66e0 82a6 2d1b ff6e 919d 29ad 1718 63c7 8f0b 97c8 e9ae 82ae 43d3"));
+        assertEquals(response(307, DATE_21), decode(decoder, "4883 640e ffc1 c0bf"));
+        assertEquals(response3(), decode(decoder, "88c1 6196 d07a be94 1054 d444 a820 0595 040b 8166 e084 a62d 1bff c05a 839b d9ab 77ad 94e7 821d d7f2 e6c7 b335 dfdf cd5b 3960 d5af 2708 7f36 72c1 ab27 0fb5 291f 9587 3160 65c0 03ed 4ee5 b106 3d50 07"));
+    }
+
+    @Test
+    void evictedIndexIsRejected() throws ProtocolException {
+        final Hpack.Decoder decoder = new Hpack.Decoder(256);
+
+        decode(decoder, "4882 6402 5885 aec3 771a 4b61 96d0 7abe 9410 54d4 44a8 2005 9504 0b81 66e0 82a6 2d1b ff6e 919d 29ad 1718 63c7 8f0b 97c8 e9ae 82ae 43d3");
+
+        assertThrows(ProtocolException.class, () -> decode(decoder, "c3")); // four entries in the table: 62..65
+    }
+
+    @Test
+    void tableSizeUpdateOverLimitIsRejected() {
+        assertThrows(ProtocolException.class, () -> decode(new Hpack.Decoder(256), "3fe1 1f")); // 4096
+    }
+
+    @Test
+    void huffmanStrings() throws ProtocolException {
+        final String[][] samples = {{"www.example.com", "f1e3 c2e5 f23a 6ba0 ab90 f4ff"}, {"no-cache", "a8eb 1064 9cbf"},
+                {"custom-key", "25a8 49e9 5ba9 7d7f"}, {"custom-value", "25a8 49e9 5bb8 e8b4 bf"}, {"302", "6402"}, {"private", "aec3 771a 4b"}};
+
+        for (final String[] s : samples) {
+            final byte[] raw = s[0].getBytes(StandardCharsets.ISO_8859_1), coded = hex(s[1]);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Huffman.encode(raw, out);
+
+            assertEquals(coded.length, Huffman.length(raw));
+            assertArrayEquals(coded, out.toByteArray());
+            assertEquals(s[0], new String(Huffman.decode(coded, 0, coded.length), StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Test
+    void huffmanPaddingMustBeOnes() {
+        assertThrows(ProtocolException.class, () -> Huffman.decode(new byte[]{0x18}, 0, 1)); // "a" padded with zeros
+        assertThrows(ProtocolException.class, () -> Huffman.decode(new byte[]{0x1f, (byte) 0xff}, 0, 2)); // padding longer than 7 bits
+    }
+
+    private static final String C41 = "8286 8441 8cf1 e3c2 e5f2 3a6b a0ab 90f4 ff", C42 = "8286 84be 5886 a8eb 1064 9cbf",
+            C43 = "8287 85bf 4088 25a8 49e9 5ba9 7d7f 8925 a849 e95b b8e8 b4bf";
+
+    private static List<String> request1() {
+        return Arrays.asList(":method: GET", ":scheme: http", ":path: /", ":authority: www.example.com");
+    }
+
+    private static List<String> request2() {
+        return Arrays.asList(":method: GET", ":scheme: http", ":path: /", ":authority: www.example.com", "cache-control: no-cache");
+    }
+
+    private static List<String> request3() {
+        return Arrays.asList(":method: GET", ":scheme: https", ":path: /index.html", ":authority: www.example.com", "custom-key: custom-value");
+    }
+
+    private static List<String> response(final int status, final String date) {
+        return Arrays.asList(":status: " + status, "cache-control: private", "date: " + date, "location: " + LOCATION);
+    }
+
+    private static List<String> response3() {
+        return Arrays.asList(":status: 200", "cache-control: private", "date: " + DATE_22, "location: " + LOCATION, "content-encoding: gzip", "set-cookie: " + COOKIE);
+    }
+
+    private static List<String> decode(final Hpack.Decoder decoder, final String hex) throws ProtocolException {
+        final byte[] block = hex(hex);
+        final List<String> fields = new ArrayList<>();
+
+        decoder.decode(block, block.length, (k, v) -> fields.add(k + ": " + v));
+
+        return fields;
+    }
+
+    private static byte[] encode(final Hpack.Encoder encoder, final List<String> fields) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.begin(out);
+
+        for (final String f : fields) {
+            final int colon = f.indexOf(": ", 1);
+            encoder.header(f.substring(0, colon), f.substring(colon + 2), out);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] hex(final String hex) {
+        final String digits = hex.replace(" ", "");
+        final byte[] bytes = new byte[digits.length() / 2];
+
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(digits.substring(i * 2, i * 2 + 2), 16);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+package org.logdoc.fairhttp.structs;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Denis Danilin | me@loslobos.ru
+ * 26.10.2026 11:50
+ * fairhttp ☭ sweat and blood
+ */
+class HeaderMapTest {
+    private static HeaderMap sample() {
+        return new HeaderMap().add("Set-Cookie", "a=1").add("Content-Type", "text/plain").add("set-cookie", "b=2");
+    }
+
+    @Test
+    void mapViewHasOneEntryPerName() {
+        final HeaderMap map = sample();
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("Set-Cookie", "b=2");
+        expected.put("Content-Type", "text/plain");
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.fields());
+        assertEquals(Arrays.asList("Set-Cookie", "Content-Type"), new ArrayList<>(map.keySet()));
+        assertEquals(Arrays.asList("b=2", "text/plain"), new ArrayList<>(map.values()));
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    void repeatsAreKept() {
+        final HeaderMap map = sample();
+        final List<String> fields = new ArrayList<>();
+        map.forEachField((k, v) -> fields.add(k + ": " + v));
+
+        assertEquals(Arrays.asList("Set-Cookie: a=1", "Content-Type: text/plain", "Set-Cookie: b=2"), fields);
+        assertEquals(Arrays.asList("a=1", "b=2"), map.all("SET-COOKIE"));
+        assertEquals("a=1", map.first("set-cookie"));
+        assertEquals("b=2", map.get("set-cookie"));
+        assertEquals(Collections.emptyList(), map.all("Missing"));
+        assertArrayEquals("Set-Cookie: a=1\r\nContent-Type: text/plain\r\nSet-Cookie: b=2\r\n".getBytes(StandardCharsets.US_ASCII), map.encoded());
+    }
+
+    @Test
+    void putReplacesEveryValueInPlaceOfTheFirst() {
+        final HeaderMap map = sample();
+
+        assertEquals("b=2", map.put("SET-COOKIE", "c=3"));
+        assertEquals(2, map.fields());
+        assertEquals("Set-Cookie", map.name(0));
+        assertEquals("c=3", map.value(0));
+        assertNull(map.put("X-New", "1"));
+        assertEquals("X-New", map.name(2));
+    }
+
+    @Test
+    void removeDropsEveryValue() {
+        final HeaderMap map = sample();
+
+        assertEquals("b=2", map.remove("set-cookie"));
+        assertEquals(1, map.fields());
+        assertFalse(map.containsKey("Set-Cookie"));
+        assertNull(map.remove("Set-Cookie"));
+    }
+
+    @Test
+    void entryIteratorRemovesName() {
+        final HeaderMap map = sample();
+        final Iterator<Map.Entry<String, String>> i = map.entrySet().iterator();
+
+        assertEquals("Set-Cookie", i.next().getKey());
+        i.remove();
+        assertEquals("Content-Type", i.next().getKey());
+        assertFalse(i.hasNext());
+        assertEquals(1, map.fields());
+    }
+
+    @Test
+    void namesIgnoreCaseAndAreShared() {
+        final HeaderMap map = new HeaderMap().add("content-type", "a");
+
+        assertTrue(map.containsKey("CONTENT-TYPE"));
+        assertSame(HeaderMap.intern("Content-Type"), map.name(0));
+        assertEquals("X-Custom", HeaderMap.intern("X-Custom"));
+    }
+
+    @Test
+    void parsedStaysLazy() throws ProtocolException {
+        final byte[] raw = "Host:  example.com \r\nVary: Accept\nvary: Origin\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        final HeaderMap map = HeaderMap.parse(raw, 0, raw.length);
+        final HeaderMap copy = map.copy();
+
+        assertEquals(3, map.fields());
+        assertEquals("example.com", map.get("host"));
+        assertEquals(Arrays.asList("Accept", "Origin"), map.all("Vary"));
+        assertSame(HeaderMap.intern("Vary"), map.name(2));
+
+        copy.add("X", "1");
+        assertEquals(3, map.fields());
+        assertEquals(4, copy.fields());
+    }
+
+    @Test
+    void malformedLines() {
+        final byte[] noColon = "Broken\r\n".getBytes(StandardCharsets.ISO_8859_1), leadingFold = " folded\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThrows(ProtocolException.class, () -> HeaderMap.parse(noColon, 0, noColon.length));
+        assertThrows(ProtocolException.class, () -> HeaderMap.parse(leadingFold, 0, leadingFold.length));
+    }
+
+    @Test
+    void frozenRefusesChanges() {
+        final HeaderMap map = sample().freeze();
+
+        assertTrue(map.frozen());
+        assertSame(map.encoded(), map.encoded());
+        assertThrows(UnsupportedOperationException.class, () -> map.add("A", "1"));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("A", "1"));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("Set-Cookie"));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+        assertFalse(map.copy().frozen());
+    }
+
+    @Test
+    void lineBreaksAreNotEncoded() {
+        assertThrows(IllegalArgumentException.class, () -> new HeaderMap().add("X", "a\r\nInjected: 1").encoded());
+    }
+}